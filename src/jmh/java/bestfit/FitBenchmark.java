@@ -0,0 +1,98 @@
+package bestfit;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*Benchmarks of the fitting pipeline on n random points for each degree. Every benchmark returns its result so
+  JMH consumes it and the JIT cannot discard the work. Narrow the run from the command line, e.g.
+      java -jar target/benchmarks.jar FitBenchmark.fitterFit -p n=1000000 -p degree=3 -prof gc */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class FitBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int n;
+
+    @Param({"1", "3", "8", "15"})
+    public int degree;
+
+    private double[] x, y;
+    private double[] values; //Output of evaluateBulk
+    private Matrix vandermonde, column;
+    private Polynomial polynomial;
+
+    @Setup
+    public void setUp() {
+        x = randomArray(n, 1);
+        y = randomArray(n, 2);
+        values = new double[n];
+        vandermonde = new Matrix(degree + 1, x);
+        column = new Matrix(y);
+        polynomial = PolynomialFitter.fit(x, y, degree);
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return vandermonde.transpose().multiply(vandermonde);
+    }
+
+    @Benchmark
+    public Matrix transposeMultiply() {
+        return vandermonde.transposeMultiply(vandermonde);
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return vandermonde.transpose();
+    }
+
+    @Benchmark
+    public Matrix solveLeastSquares() {
+        return vandermonde.solveLeastSquares(column);
+    }
+
+    @Benchmark
+    public Polynomial fitterFit() {
+        return PolynomialFitter.fit(x, y, degree);
+    }
+
+    @Benchmark
+    public double evaluateScalar() {
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += polynomial.evaluate(x[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double[] evaluateBulk() {
+        polynomial.evaluate(x, values);
+        return values;
+    }
+
+    private static double[] randomArray(int n, long seed) {
+        Random random = new Random(seed);
+        double[] arr = new double[n];
+        for (int i = 0; i < n; i++) {
+            arr[i] = 2*random.nextDouble() - 1;
+        }
+        return arr;
+    }
+}
@@ -0,0 +1,58 @@
+package bestfit;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Benchmarks of the dense square-matrix operations on a random size x size matrix
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SquareMatrixBenchmark {
+
+    @Param({"4", "16", "64", "256"})
+    public int size;
+
+    private Matrix m;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(size);
+        m = new Matrix(size, size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                m.setEntry(i, j, 2*random.nextDouble() - 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public Matrix squareMultiply() {
+        return m.multiply(m);
+    }
+
+    @Benchmark
+    public Matrix invert() {
+        return m.invert();
+    }
+
+    //The factorization alone; extracting L or U would add an n x n allocation
+    @Benchmark
+    public PLUFactorization decompose() {
+        return new PLUFactorization(m);
+    }
+}
@@ -0,0 +1,24 @@
+package bestfit;
+
+//A Dataset over two on-heap arrays, which are used as they are rather than copied
+public class ArrayDataset implements Dataset {
+
+    private double[] x, y;
+
+    public ArrayDataset(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Need the same number of x and y values");
+        }
+        this.x = x;
+        this.y = y;
+    }
+
+    public long size() {
+        return x.length;
+    }
+
+    public void read(long from, double[] xOut, double[] yOut, int count) {
+        System.arraycopy(x, (int) from, xOut, 0, count);
+        System.arraycopy(y, (int) from, yOut, 0, count);
+    }
+}
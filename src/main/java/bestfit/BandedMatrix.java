@@ -0,0 +1,114 @@
+package bestfit;
+
+/*Symmetric matrix whose nonzero entries lie within 'bandwidth' places of the diagonal, such as the normal
+  matrix of a spline fit. Only the diagonal and the bandwidth diagonals above it are stored, n*(bandwidth + 1)
+  entries in all, and a positive-definite system is solved by banded Cholesky factorization in
+  O(n*bandwidth^2) time rather than the O(n^3) of a dense factorization */
+public class BandedMatrix {
+
+    /*Row i holds entries (i, i) ... (i, i + bandwidth) at data[i*(bandwidth + 1)] onwards; entries past the
+      last column are unused */
+    private double[] data;
+    private int size;
+    private int bandwidth;
+
+    public BandedMatrix(int size, int bandwidth) {
+        this.size = size;
+        this.bandwidth = bandwidth;
+        data = new double[size*(bandwidth + 1)];
+    }
+
+    public BandedMatrix(BandedMatrix m) {
+        this(m.size, m.bandwidth);
+        System.arraycopy(m.data, 0, data, 0, data.length);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    public double getEntry(int row, int col) {
+        int i = Math.min(row, col);
+        int d = Math.abs(row - col);
+        return d > bandwidth ? 0 : data[i*(bandwidth + 1) + d];
+    }
+
+    //Sets (row, col) and, by symmetry, (col, row)
+    public void setEntry(int row, int col, double val) {
+        data[index(row, col)] = val;
+    }
+
+    //Adds 'val' to (row, col) and, by symmetry, (col, row)
+    public void addToEntry(int row, int col, double val) {
+        data[index(row, col)] += val;
+    }
+
+    /*Solves this * x = b. Throws ArithmeticException if the matrix is not positive definite. The matrix
+      itself is left unchanged */
+    public double[] solve(double[] b) {
+        if (b.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " right-hand-side values but found " + b.length);
+        }
+        int w = bandwidth + 1;
+        double[] r = factor();
+
+        //R-transpose * z = b, then R * x = z, where R is the upper-triangular factor with R-transpose * R = this
+        double[] x = b.clone();
+        for (int i = 0; i < size; i++) {
+            double sum = x[i];
+            for (int k = Math.max(0, i - bandwidth); k < i; k++) {
+                sum -= r[k*w + i - k]*x[k];
+            }
+            x[i] = sum/r[i*w];
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            double sum = x[i];
+            int end = Math.min(size - 1, i + bandwidth);
+            for (int j = i + 1; j <= end; j++) {
+                sum -= r[i*w + j - i]*x[j];
+            }
+            x[i] = sum/r[i*w];
+        }
+        return x;
+    }
+
+    //Returns the band of the upper-triangular Cholesky factor R, stored the same way as 'data'
+    private double[] factor() {
+        int w = bandwidth + 1;
+        double[] r = data.clone();
+        for (int i = 0; i < size; i++) {
+            int end = Math.min(size - 1, i + bandwidth);
+            for (int j = i; j <= end; j++) {
+                //Rows k < i contribute to column j only within the band of both i and j
+                double sum = r[i*w + j - i];
+                for (int k = Math.max(0, j - bandwidth); k < i; k++) {
+                    sum -= r[k*w + i - k]*r[k*w + j - k];
+                }
+                if (j == i) {
+                    if (!(sum > 0)) {
+                        throw new ArithmeticException("Matrix is not positive definite");
+                    }
+                    r[i*w] = Math.sqrt(sum);
+                }
+                else {
+                    r[i*w + j - i] = sum/r[i*w];
+                }
+            }
+        }
+        return r;
+    }
+
+    private int index(int row, int col) {
+        int i = Math.min(row, col);
+        int d = Math.abs(row - col);
+        if (d > bandwidth || Math.max(row, col) >= size || i < 0) {
+            throw new IndexOutOfBoundsException("(" + row + ", " + col + ") lies outside the band of a " + size
+                    + "x" + size + " matrix with bandwidth " + bandwidth);
+        }
+        return i*(bandwidth + 1) + d;
+    }
+}
@@ -0,0 +1,142 @@
+package bestfit;
+
+import java.util.stream.IntStream;
+
+/*Fits many y-series sampled on the same x values. The normal matrix depends only on x, so it is built and
+  factored once; each series then only costs its right-hand-side sums and a pair of triangular solves */
+public class BatchPolynomialFitter {
+
+    private double[] xData;
+    private int numCoeff; //Degree of the polynomial plus one
+    private Matrix normal; //Hankel normal matrix of the power sums of x
+    private CholeskyFactorization factorization; //Factored 'normal', or null if it was not positive definite
+    private boolean parallel;
+
+    //Number of series handled by each task when summing the right-hand side in parallel
+    private static final int SERIES_PER_TASK = 16;
+
+    public BatchPolynomialFitter(double[] xData, int degree) {
+        this.xData = xData;
+        numCoeff = degree + 1;
+
+        double[] powerSums = new double[2*degree + 1];
+        for (int i = 0; i < xData.length; i++) {
+            PowerSums.accumulate(powerSums, xData[i]);
+        }
+        normal = PowerSums.normalMatrix(powerSums, numCoeff);
+        try {
+            factorization = new CholeskyFactorization(normal);
+        }
+        catch (ArithmeticException e) {
+            factorization = null;
+        }
+    }
+
+    public int getDegree() {
+        return numCoeff - 1;
+    }
+
+    //In parallel mode the right-hand sides of different series are summed concurrently
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    //Estimated condition number of the normal matrix, as in PolynomialFitter.conditionEstimate()
+    public double conditionEstimate() {
+        return factorization == null ? Double.POSITIVE_INFINITY : factorization.conditionEstimate();
+    }
+
+    public Polynomial fit(double[] yData) {
+        return fitAll(new double[][] {yData})[0];
+    }
+
+    //Fits each series ySeries[s], where ySeries[s][i] is the value of series s at x[i]
+    public Polynomial[] fitAll(double[][] ySeries) {
+        for (int s = 0; s < ySeries.length; s++) {
+            if (ySeries[s].length != xData.length) {
+                throw new IllegalArgumentException("Expected " + xData.length + " y values in series " + s + " but found "
+                        + ySeries[s].length);
+            }
+        }
+        Matrix rhs = new Matrix(numCoeff, ySeries.length);
+        IntStream series = IntStream.range(0, ySeries.length);
+        if (parallel) {
+            series = series.parallel();
+        }
+        series.forEach(s -> {
+            double[] y = ySeries[s];
+            double[] sums = new double[numCoeff];
+            for (int i = 0; i < xData.length; i++) {
+                double xPow = 1;
+                for (int k = 0; k < numCoeff; k++) {
+                    sums[k] += xPow*y[i];
+                    xPow *= xData[i];
+                }
+            }
+            for (int k = 0; k < numCoeff; k++) {
+                rhs.setEntry(k, s, sums[k]);
+            }
+        });
+        return toPolynomials(solveNormal(rhs));
+    }
+
+    //Fits every column of 'y', an N x k matrix whose row i holds the values of all k series at x[i]
+    public Polynomial[] fitAll(Matrix y) {
+        return toPolynomials(solve(y));
+    }
+
+    //Returns the (degree + 1) x k matrix whose columns are the coefficients of the fit to each column of 'y'
+    public Matrix solve(Matrix y) {
+        if (y.getNumRow() != xData.length) {
+            throw new IllegalArgumentException("Expected " + xData.length + " rows of y data but found " + y.getNumRow());
+        }
+        int numSeries = y.getNumCol();
+        Matrix rhs = new Matrix(numCoeff, numSeries);
+
+        //Each task sums a block of columns over every point, so no two tasks write the same entry
+        IntStream blocks = IntStream.range(0, (numSeries + SERIES_PER_TASK - 1)/SERIES_PER_TASK);
+        if (parallel) {
+            blocks = blocks.parallel();
+        }
+        blocks.forEach(block -> {
+            int from = block*SERIES_PER_TASK;
+            int to = Math.min(from + SERIES_PER_TASK, numSeries);
+            double[] sums = new double[numCoeff*(to - from)];
+            for (int i = 0; i < xData.length; i++) {
+                double xPow = 1;
+                for (int k = 0; k < numCoeff; k++) {
+                    int row = k*(to - from);
+                    for (int s = from; s < to; s++) {
+                        sums[row + s - from] += xPow*y.getEntry(i, s);
+                    }
+                    xPow *= xData[i];
+                }
+            }
+            for (int k = 0; k < numCoeff; k++) {
+                for (int s = from; s < to; s++) {
+                    rhs.setEntry(k, s, sums[k*(to - from) + s - from]);
+                }
+            }
+        });
+        return solveNormal(rhs);
+    }
+
+    private Matrix solveNormal(Matrix rhs) {
+        if (factorization != null) {
+            return factorization.solve(rhs);
+        }
+        return new PLUFactorization(normal).solve(rhs);
+    }
+
+    private Polynomial[] toPolynomials(Matrix coefficients) {
+        Polynomial[] polynomials = new Polynomial[coefficients.getNumCol()];
+        for (int s = 0; s < polynomials.length; s++) {
+            polynomials[s] = new Polynomial(coefficients.column(s));
+        }
+        return polynomials;
+    }
+}
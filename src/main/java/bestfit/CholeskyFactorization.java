@@ -0,0 +1,192 @@
+package bestfit;
+
+import java.util.Arrays;
+
+public class CholeskyFactorization {
+
+    private double[] l; //Lower-triangular factor, stored row-major as an n x n array
+    private int n;
+    private double norm; //1-norm of the factored matrix, used to estimate its condition number
+
+    //Factors a symmetric positive-definite matrix 'm' as L*L-transpose. Only the lower triangle of 'm' is read
+    public CholeskyFactorization(Matrix m) {
+        n = m.getNumRow();
+        l = new double[n*n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                l[i*n + j] = m.getEntry(i, j);
+            }
+        }
+
+        //The 1-norm is the largest absolute column sum, read through the lower triangle by symmetry
+        for (int j = 0; j < n; j++) {
+            double colSum = 0;
+            for (int i = 0; i < n; i++) {
+                colSum += Math.abs(i >= j ? l[i*n + j] : l[j*n + i]);
+            }
+            norm = Math.max(norm, colSum);
+        }
+
+        if (!decompose(l, n)) {
+            throw new ArithmeticException("Matrix is not positive definite");
+        }
+    }
+
+    public Matrix getL() {
+        Matrix lMat = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                lMat.setEntry(i, j, l[i*n + j]);
+            }
+        }
+        return lMat;
+    }
+
+    //Solves (L * L-transpose) * x = b for every column of 'b' by forward and back substitution
+    public Matrix solve(Matrix b) {
+        Matrix x = new Matrix(b.getNumRow(), b.getNumCol());
+        double[] col = new double[n];
+
+        for (int j = 0; j < b.getNumCol(); j++) {
+            for (int i = 0; i < n; i++) {
+                col[i] = b.getEntry(i, j);
+            }
+            solve(l, n, col);
+            for (int i = 0; i < n; i++) {
+                x.setEntry(i, j, col[i]);
+            }
+        }
+        return x;
+    }
+
+    /*Estimates the 1-norm condition number of the factored matrix, ||A|| * ||A^-1||, using Hager's method:
+      a few solves against well-chosen vectors estimate ||A^-1|| in O(n^2) without forming the inverse. The
+      estimate is a lower bound that is almost always within a small factor of the true value */
+    public double conditionEstimate() {
+        return conditionEstimate(l, n, norm);
+    }
+
+    //As above, for a factor 'l' produced by decompose() from a matrix with 1-norm 'norm'
+    static double conditionEstimate(double[] l, int n, double norm) {
+        double[] x = new double[n];
+        double[] z = new double[n];
+        Arrays.fill(x, 1.0/n);
+        double invNorm = 0;
+
+        for (int iter = 0; iter < 5; iter++) {
+            System.arraycopy(x, 0, z, 0, n);
+            solve(l, n, z);
+            invNorm = 0;
+            for (int i = 0; i < n; i++) {
+                invNorm += Math.abs(z[i]);
+                z[i] = z[i] >= 0 ? 1 : -1;
+            }
+
+            //A is symmetric, so the gradient step solves with A again rather than its transpose
+            solve(l, n, z);
+            int maxIndex = 0;
+            double zx = 0;
+            for (int i = 0; i < n; i++) {
+                zx += z[i]*x[i];
+                if (Math.abs(z[i]) > Math.abs(z[maxIndex])) {
+                    maxIndex = i;
+                }
+            }
+            if (Math.abs(z[maxIndex]) <= zx) {
+                break;
+            }
+            Arrays.fill(x, 0);
+            x[maxIndex] = 1;
+        }
+        return norm*invNorm;
+    }
+
+    /*Overwrites the lower triangle of the n x n row-major array 'a' with its Cholesky factor L (a = L * L-transpose)
+      and zeroes the upper triangle. Returns false if 'a' is not numerically positive definite */
+    static boolean decompose(double[] a, int n) {
+        for (int j = 0; j < n; j++) {
+            int jRow = j*n;
+            double diag = a[jRow + j];
+            for (int k = 0; k < j; k++) {
+                diag -= a[jRow + k]*a[jRow + k];
+            }
+            if (!(diag > 0)) {
+                return false;
+            }
+            diag = Math.sqrt(diag);
+            a[jRow + j] = diag;
+
+            for (int i = j + 1; i < n; i++) {
+                int iRow = i*n;
+                double sum = a[iRow + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= a[iRow + k]*a[jRow + k];
+                }
+                a[iRow + j] = sum/diag;
+                a[jRow + i] = 0;
+            }
+        }
+        return true;
+    }
+
+    //Overwrites 'b' with the solution x to (L * L-transpose) * x = b, where 'l' was produced by decompose()
+    static void solve(double[] l, int n, double[] b) {
+
+        //Forward substitution: L * z = b
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= l[i*n + k]*b[k];
+            }
+            b[i] = sum/l[i*n + i];
+        }
+
+        //Back substitution: L-transpose * x = z
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= l[k*n + i]*b[k];
+            }
+            b[i] = sum/l[i*n + i];
+        }
+    }
+
+    /*Overwrites the factor 'l' of a matrix A with the factor of A + v * v-transpose in O(n^2), without
+      refactoring. 'v' is used as scratch space and is destroyed */
+    static void update(double[] l, int n, double[] v) {
+        for (int k = 0; k < n; k++) {
+            double lkk = l[k*n + k];
+            double r = Math.sqrt(lkk*lkk + v[k]*v[k]);
+            double c = r/lkk;
+            double s = v[k]/lkk;
+            l[k*n + k] = r;
+            for (int i = k + 1; i < n; i++) {
+                double lik = (l[i*n + k] + s*v[i])/c;
+                l[i*n + k] = lik;
+                v[i] = c*v[i] - s*lik;
+            }
+        }
+    }
+
+    /*Overwrites the factor 'l' of a matrix A with the factor of A - v * v-transpose in O(n^2). Returns false,
+      leaving 'l' unusable, if the result is not numerically positive definite. 'v' is destroyed */
+    static boolean downdate(double[] l, int n, double[] v) {
+        for (int k = 0; k < n; k++) {
+            double lkk = l[k*n + k];
+            double rSquared = (lkk - v[k])*(lkk + v[k]);
+            if (!(rSquared > 0)) {
+                return false;
+            }
+            double r = Math.sqrt(rSquared);
+            double c = r/lkk;
+            double s = v[k]/lkk;
+            l[k*n + k] = r;
+            for (int i = k + 1; i < n; i++) {
+                double lik = (l[i*n + k] - s*v[i])/c;
+                l[i*n + k] = lik;
+                v[i] = c*v[i] - s*lik;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,10 @@
+package bestfit;
+
+//A function of one variable fit to data, which the plot can sample and draw
+public interface Curve {
+
+    double evaluate(double x);
+
+    //Evaluates the curve at every xs[i], storing the result in out[i]
+    void evaluate(double[] xs, double[] out);
+}
@@ -0,0 +1,400 @@
+package bestfit;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*Reads (x, y) data from files through memory-mapped channels and passes it on in fixed-size chunks. The same
+  two chunk arrays are refilled for the whole file, so loading allocates almost nothing however large the
+  file is, and the points can go straight into a fitter without being collected first.
+
+  Two formats are supported:
+    CSV: one point per line, x and y separated by a comma, semicolon, tab or spaces. Lines that do not start
+         with a number (such as a header) are skipped; "NaN" and "Infinity" count as numbers.
+    Binary: raw little-endian doubles, alternating x and y */
+public class DataLoader {
+
+    //Receives a chunk of points: (x[i], y[i]) for 0 <= i < count. The arrays are reused after the call returns
+    public interface PointConsumer {
+        void accept(double[] x, double[] y, int count);
+    }
+
+    //Number of points handed over in each chunk
+    public static final int CHUNK_SIZE = 1 << 14;
+
+    //Largest region mapped at a time, below the 2 GB limit of a single mapping
+    private static final long MAX_MAP_SIZE = 1L << 30;
+
+    //Exact powers of ten for the fast path of the number parser
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    /*5^q for MIN_POWER <= q <= MAX_POWER, normalized to 128 bits and truncated, split into high and low
+      halves, with the binary exponent e such that 5^q is about (128-bit value) * 2^(e - 127) */
+    private static final int MIN_POWER = -342;
+    private static final int MAX_POWER = 308;
+    private static final long[] POWERS_OF_FIVE_HI = new long[MAX_POWER - MIN_POWER + 1];
+    private static final long[] POWERS_OF_FIVE_LO = new long[MAX_POWER - MIN_POWER + 1];
+    private static final int[] POWERS_OF_FIVE_EXP = new int[MAX_POWER - MIN_POWER + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1]*10;
+        }
+
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+            BigInteger five = BigInteger.valueOf(5).pow(Math.abs(q));
+            int bits = five.bitLength();
+            BigInteger normalized;
+            int exp;
+            if (q >= 0) {
+                normalized = bits <= 128 ? five.shiftLeft(128 - bits) : five.shiftRight(bits - 128);
+                exp = bits - 1;
+            }
+            else {
+                normalized = BigInteger.ONE.shiftLeft(127 + bits).divide(five);
+                exp = -bits;
+            }
+            POWERS_OF_FIVE_HI[q - MIN_POWER] = normalized.shiftRight(64).longValue();
+            POWERS_OF_FIVE_LO[q - MIN_POWER] = normalized.and(mask).longValue();
+            POWERS_OF_FIVE_EXP[q - MIN_POWER] = exp;
+        }
+    }
+
+    private double[] xChunk = new double[CHUNK_SIZE];
+    private double[] yChunk = new double[CHUNK_SIZE];
+    private int count;
+    private PointConsumer consumer;
+    private int pos; //Read position of the CSV parser
+    private long line; //Lines parsed so far, across every region of the file
+
+    private DataLoader(PointConsumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /*Loads a CSV file if its name ends in ".csv" or ".txt", a file of floats (see MappedDataset) if it ends in
+      ".f32", and a binary file otherwise. Returns the number of points */
+    public static long load(Path file, PointConsumer consumer) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            return loadCsv(file, consumer);
+        }
+        if (name.endsWith(".f32")) {
+            MappedDataset data = MappedDataset.open(file, MappedDataset.Precision.FLOAT32);
+            data.forEachChunk(consumer);
+            return data.size();
+        }
+        return loadBinary(file, consumer);
+    }
+
+    public static long loadCsv(Path file, PointConsumer consumer) throws IOException {
+        return loadCsv(file, consumer, MAX_MAP_SIZE);
+    }
+
+    //Maps at most 'maxMapSize' bytes at a time, so tests can split a small file into several regions
+    static long loadCsv(Path file, PointConsumer consumer, long maxMapSize) throws IOException {
+        DataLoader loader = new DataLoader(consumer);
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(maxMapSize, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                //Stop the region at its last line break so no line is split between two mappings
+                int end = (int) length;
+                if (position + length < size) {
+                    while (end > 0 && buffer.get(end - 1) != '\n') {
+                        end--;
+                    }
+                    if (end == 0) {
+                        throw new IOException("Line longer than " + maxMapSize + " bytes in " + file);
+                    }
+                }
+                buffer.limit(end);
+                total += loader.parseCsv(buffer);
+                position += end;
+            }
+        }
+        loader.flush();
+        return total;
+    }
+
+    //Parses CSV data from the buffer's position to its limit, passing each chunk to the consumer
+    public static long parseCsv(ByteBuffer buffer, PointConsumer consumer) throws IOException {
+        DataLoader loader = new DataLoader(consumer);
+        long total = loader.parseCsv(buffer);
+        loader.flush();
+        return total;
+    }
+
+    public static long loadBinary(Path file, PointConsumer consumer) throws IOException {
+        DataLoader loader = new DataLoader(consumer);
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % 16 != 0) {
+                throw new IOException(file + " is not a whole number of (x, y) double pairs");
+            }
+            for (long position = 0; position < size; position += MAX_MAP_SIZE) {
+                long length = Math.min(MAX_MAP_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                while (buffer.hasRemaining()) {
+                    loader.add(buffer.getDouble(), buffer.getDouble());
+                }
+                total += length/16;
+            }
+        }
+        loader.flush();
+        return total;
+    }
+
+    private void add(double x, double y) {
+        xChunk[count] = x;
+        yChunk[count] = y;
+        count++;
+        if (count == CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (count > 0) {
+            consumer.accept(xChunk, yChunk, count);
+            count = 0;
+        }
+    }
+
+    //Parses lines in a single pass: each byte is read once, apart from the look-ahead at a line's start
+    private long parseCsv(ByteBuffer buffer) throws IOException {
+        long points = 0;
+        int limit = buffer.limit();
+        pos = buffer.position();
+
+        while (pos < limit) {
+            line++;
+            skipSeparators(buffer, limit);
+            if (pos < limit && startsNumber(buffer, limit)) {
+                double x = parseNumber(buffer, limit);
+                skipSeparators(buffer, limit);
+                if (pos >= limit || buffer.get(pos) == '\n') {
+                    throw new IOException("Line " + line + " has an x value but no y value");
+                }
+                double y = parseNumber(buffer, limit);
+                add(x, y);
+                points++;
+            }
+
+            //Ignore anything else on the line, such as further columns or a header
+            while (pos < limit && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+        buffer.position(limit);
+        return points;
+    }
+
+    private void skipSeparators(ByteBuffer buffer, int limit) {
+        while (pos < limit && isSeparator(buffer.get(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == ';' || b == ' ' || b == '\t' || b == '\r';
+    }
+
+    //Whether the text at 'pos' starts a number, counting "NaN" and "Infinity" but not other words such as a header
+    private boolean startsNumber(ByteBuffer buffer, int limit) {
+        byte b = buffer.get(pos);
+        if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.') {
+            return true;
+        }
+        return isWord(buffer, limit, "NaN") || isWord(buffer, limit, "Infinity");
+    }
+
+    //Whether 'word' is at 'pos', followed by a separator or the end of the line
+    private boolean isWord(ByteBuffer buffer, int limit, String word) {
+        int end = pos + word.length();
+        if (end > limit || (end < limit && !isSeparator(buffer.get(end)) && buffer.get(end) != '\n')) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (buffer.get(pos + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*Parses the number starting at 'pos' without creating a String, leaving 'pos' just past it. The digits are
+      gathered into a 64-bit mantissa w and a decimal exponent q so that the value is w * 10^q. When w has at
+      most 15 digits and |q| is at most 22, one multiplication or division by an exact power of ten gives the
+      correctly rounded result. Longer mantissas of up to 19 digits go through the Eisel-Lemire algorithm.
+      Only what neither can settle (more than 19 digits, subnormals, overflow, "NaN") is given to
+      Double.parseDouble */
+    private double parseNumber(ByteBuffer buffer, int limit) throws IOException {
+        int start = pos;
+        boolean negative = false;
+        byte b = buffer.get(pos);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            pos++;
+        }
+
+        long mantissa = 0; //Unsigned: up to 19 digits
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+        while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+            anyDigit = true;
+            if (digits > 0 || b != '0') {
+                if (digits < 19) {
+                    mantissa = mantissa*10 + (b - '0');
+                }
+                else {
+                    exponent++;
+                    truncated |= b != '0';
+                }
+                digits++;
+            }
+            pos++;
+        }
+        if (pos < limit && buffer.get(pos) == '.') {
+            pos++;
+            while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                anyDigit = true;
+                if (digits > 0 || b != '0') {
+                    if (digits < 19) {
+                        mantissa = mantissa*10 + (b - '0');
+                        exponent--;
+                    }
+                    else {
+                        truncated |= b != '0';
+                    }
+                    digits++;
+                }
+                else {
+                    exponent--;
+                }
+                pos++;
+            }
+        }
+        if (anyDigit && pos < limit && ((b = buffer.get(pos)) == 'e' || b == 'E')) {
+            pos++;
+            boolean negativeExp = false;
+            if (pos < limit && ((b = buffer.get(pos)) == '-' || b == '+')) {
+                negativeExp = b == '-';
+                pos++;
+            }
+            int exp = 0;
+            boolean expDigit = false;
+            while (pos < limit && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                expDigit = true;
+                exp = Math.min(exp*10 + (b - '0'), 100000);
+                pos++;
+            }
+            anyDigit &= expDigit;
+            exponent += negativeExp ? -exp : exp;
+        }
+
+        //Anything else before the next separator (such as "Infinity") is left to the slow path
+        boolean wellFormed = anyDigit && (pos >= limit || isSeparator(buffer.get(pos)) || buffer.get(pos) == '\n');
+        while (pos < limit && !isSeparator(buffer.get(pos)) && buffer.get(pos) != '\n') {
+            pos++;
+        }
+
+        if (wellFormed && !truncated) {
+            if (mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+                double value = exponent >= 0 ? mantissa*POWERS_OF_TEN[exponent] : mantissa/POWERS_OF_TEN[-exponent];
+                return negative ? -value : value;
+            }
+            long bits = eiselLemire(mantissa, exponent);
+            if (bits >= 0) {
+                double value = Double.longBitsToDouble(bits);
+                return negative ? -value : value;
+            }
+        }
+        return slowParse(buffer, start, pos);
+    }
+
+    /*Eisel-Lemire: returns the bits of the double nearest to w * 10^q, or -1 if the result could not be
+      determined with certainty. w is multiplied by a 128-bit truncation of 5^q; the product's top bits are
+      the answer unless they lie too close to a rounding boundary for the truncation error to be ruled out,
+      in which case this gives up and the caller falls back to an exact method */
+    private static long eiselLemire(long w, int q) {
+        if (q < MIN_POWER || q > MAX_POWER) {
+            return -1;
+        }
+        int index = q - MIN_POWER;
+        long powHi = POWERS_OF_FIVE_HI[index];
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+
+        long hi = unsignedMultiplyHigh(w, powHi);
+        long lo = w*powHi;
+        if ((hi & 0x1FF) == 0x1FF && Long.compareUnsigned(lo + w, lo) < 0) {
+            //The neglected low half of the power could carry into the bits that decide rounding: include it
+            long powLo = POWERS_OF_FIVE_LO[index];
+            long secondHi = unsignedMultiplyHigh(w, powLo);
+            long newLo = lo + secondHi;
+            if (Long.compareUnsigned(newLo, secondHi) < 0) {
+                hi++;
+            }
+            lo = newLo;
+            if ((hi & 0x1FF) == 0x1FF) {
+                return -1;
+            }
+        }
+
+        int upperBit = (int) (hi >>> 63);
+        long m = hi >>> (upperBit + 9);
+        if ((hi & 0x1FF) == 0 && (m & 3) == 1) {
+            return -1; //Possibly exactly halfway between two doubles
+        }
+        m += m & 1;
+        m >>>= 1;
+        int shift = 0;
+        if (m >= (1L << 53)) {
+            m = 1L << 52;
+            shift = 1;
+        }
+        long biasedExponent = upperBit + 11 + POWERS_OF_FIVE_EXP[index] + q - lz + shift + 1075;
+        if (biasedExponent < 1 || biasedExponent > 2046) {
+            return -1;
+        }
+        return (m & ~(1L << 52)) | (biasedExponent << 52);
+    }
+
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    private static double slowParse(ByteBuffer buffer, int start, int end) throws IOException {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        String text = new String(bytes, StandardCharsets.US_ASCII);
+        try {
+            return Double.parseDouble(text);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("Not a number: " + text);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package bestfit;
+
+/*A read-only sequence of (x, y) points that is read a chunk at a time rather than held as two arrays, so
+  the points can live outside the heap, e.g. in a memory-mapped file (see MappedDataset). Implementations
+  must allow concurrent reads from several threads */
+public interface Dataset {
+
+    long size();
+
+    //Copies points from ... from + count - 1 into x[0 ... count - 1] and y[0 ... count - 1]
+    void read(long from, double[] x, double[] y, int count);
+
+    //Passes every point to 'consumer' in order, DataLoader.CHUNK_SIZE points at a time
+    default void forEachChunk(DataLoader.PointConsumer consumer) {
+        forEachChunk(0, size(), consumer);
+    }
+
+    //Passes points from ... to - 1 to 'consumer' in order, refilling the same two arrays for every chunk
+    default void forEachChunk(long from, long to, DataLoader.PointConsumer consumer) {
+        int chunk = (int) Math.min(DataLoader.CHUNK_SIZE, Math.max(to - from, 0));
+        double[] x = new double[chunk];
+        double[] y = new double[chunk];
+        for (long start = from; start < to; start += chunk) {
+            int count = (int) Math.min(chunk, to - start);
+            read(start, x, y, count);
+            consumer.accept(x, y, count);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package bestfit;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*Chooses the degree of the best fit polynomial by fitting every degree up to a cap and scoring each one,
+  either by an information criterion or by k-fold cross-validation. Lower scores are better. An information
+  criterion picks the lowest score; cross-validation picks the lowest degree within one standard error of
+  the lowest score, since its scores are estimates and smaller differences between them are noise */
+public class DegreeSelector {
+
+    public enum Criterion { AIC, BIC, CROSS_VALIDATION }
+
+    //The chosen polynomial along with the score of every candidate degree
+    public static class Result {
+
+        private Polynomial polynomial;
+        private int degree;
+        private double[] scores;
+        private double[] standardErrors;
+
+        private Result(Polynomial polynomial, int degree, double[] scores, double[] standardErrors) {
+            this.polynomial = polynomial;
+            this.degree = degree;
+            this.scores = scores;
+            this.standardErrors = standardErrors;
+        }
+
+        public Polynomial getPolynomial() {
+            return polynomial;
+        }
+
+        public int getDegree() {
+            return degree;
+        }
+
+        //scores[d] is the score of degree d; degrees that could not be fit score positive infinity
+        public double[] getScores() {
+            return scores.clone();
+        }
+
+        //Standard error of each cross-validation score; zero for the information criteria
+        public double[] getStandardErrors() {
+            return standardErrors.clone();
+        }
+    }
+
+    private int maxDegree;
+    private Criterion criterion;
+    private int folds = 5;
+
+    public DegreeSelector(int maxDegree, Criterion criterion) {
+        this.maxDegree = maxDegree;
+        this.criterion = criterion;
+    }
+
+    //Number of folds used by CROSS_VALIDATION
+    public void setFolds(int folds) {
+        if (folds < 2) {
+            throw new IllegalArgumentException("Cross-validation needs at least two folds");
+        }
+        this.folds = folds;
+    }
+
+    public Result select(double[] xData, double[] yData) {
+        double[] scores = new double[maxDegree + 1];
+        Arrays.fill(scores, Double.POSITIVE_INFINITY);
+
+        /*One orthogonal-polynomial sweep gives the residual of every degree at the cost of a single fit, and
+          shows which degrees the data has enough distinct x values for */
+        OrthogonalPolynomialFitter sweep = new OrthogonalPolynomialFitter(xData, yData);
+        double[] rss = new double[maxDegree + 1];
+        rss[0] = sweep.getResidualSumOfSquares();
+        int feasible = 0;
+        try {
+            while (feasible < maxDegree) {
+                sweep.increaseDegree();
+                feasible++;
+                rss[feasible] = sweep.getResidualSumOfSquares();
+            }
+        }
+        catch (IllegalStateException e) {
+            //Higher degrees are not identifiable from this data and keep an infinite score
+        }
+
+        double[] standardErrors = new double[maxDegree + 1];
+        if (criterion == Criterion.CROSS_VALIDATION) {
+            crossValidate(xData, yData, feasible, scores, standardErrors);
+        }
+        else {
+            int n = xData.length;
+            double penalty = criterion == Criterion.AIC ? 2 : Math.log(n);
+            for (int d = 0; d <= feasible; d++) {
+                scores[d] = n*Math.log(rss[d]/n) + penalty*(d + 1);
+            }
+        }
+
+        int best = 0;
+        for (int d = 1; d <= feasible; d++) {
+            if (scores[d] < scores[best]) {
+                best = d;
+            }
+        }
+        double limit = scores[best] + standardErrors[best];
+        for (int d = 0; d < best; d++) {
+            if (scores[d] <= limit) {
+                best = d;
+                break;
+            }
+        }
+        OrthogonalPolynomialFitter fit = new OrthogonalPolynomialFitter(xData, yData);
+        fit.fitDegrees(best);
+        return new Result(fit.toPolynomial(), best, scores, standardErrors);
+    }
+
+    /*Scores degrees 0..feasible by mean squared prediction error on held-out folds, and records the standard
+      error of each score from the spread of the per-fold errors. Point i belongs to fold i % folds. Each fold
+      is fit by one orthogonal-polynomial sweep over its training points, the same stable fitter as the final
+      fit, scoring every degree on the way. Folds are fit concurrently */
+    private void crossValidate(double[] xData, double[] yData, int feasible, double[] scores, double[] standardErrors) {
+        int n = xData.length;
+        int k = Math.min(folds, n);
+
+        double[][] errors = IntStream.range(0, k).parallel().mapToObj(f -> {
+            double[] sse = new double[feasible + 1];
+            Arrays.fill(sse, Double.POSITIVE_INFINITY);
+            int testSize = (n - f + k - 1)/k;
+            if (testSize == n) {
+                return sse; //No training points
+            }
+
+            double[] trainX = new double[n - testSize];
+            double[] trainY = new double[n - testSize];
+            int t = 0;
+            for (int i = 0; i < n; i++) {
+                if (i%k != f) {
+                    trainX[t] = xData[i];
+                    trainY[t++] = yData[i];
+                }
+            }
+
+            OrthogonalPolynomialFitter fit = new OrthogonalPolynomialFitter(trainX, trainY);
+            try {
+                for (int d = 0; d <= feasible; d++) {
+                    if (d > 0) {
+                        fit.increaseDegree();
+                    }
+                    double sum = 0;
+                    for (int i = f; i < n; i += k) {
+                        double r = yData[i] - fit.evaluate(xData[i]);
+                        sum += r*r;
+                    }
+                    sse[d] = sum;
+                }
+            }
+            catch (IllegalStateException e) {
+                //This fold's training points have too few distinct x values for the higher degrees
+            }
+            return sse;
+        }).toArray(double[][]::new);
+
+        //Summed in fold order so the scores do not depend on how the tasks were scheduled
+        double[] foldErrors = new double[k]; //Mean squared error of each fold for one degree
+        for (int d = 0; d <= feasible; d++) {
+            double sse = 0;
+            double mean = 0;
+            for (int f = 0; f < k; f++) {
+                sse += errors[f][d];
+                foldErrors[f] = errors[f][d]/((n - f + k - 1)/k);
+                mean += foldErrors[f]/k;
+            }
+            scores[d] = Double.isNaN(sse) ? Double.POSITIVE_INFINITY : sse/n;
+            if (k > 1 && Double.isFinite(scores[d])) {
+                double variance = 0;
+                for (int f = 0; f < k; f++) {
+                    variance += (foldErrors[f] - mean)*(foldErrors[f] - mean)/(k - 1);
+                }
+                standardErrors[d] = Math.sqrt(variance/k);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package bestfit;
+
+/*Counts the distinct x values passed to accept(), but stops counting at 'limit'. Only the distinct values
+  seen so far are kept, and once 'limit' are found each further chunk costs nothing, so checking that a data
+  set has enough distinct x values for a fit can ride along with loading it */
+public class DistinctCounter implements DataLoader.PointConsumer {
+
+    private double[] seen;
+    private int count;
+
+    public DistinctCounter(int limit) {
+        seen = new double[limit];
+    }
+
+    //Counts the distinct x values among the first points of 'points', reading only until 'limit' are found
+    public static int count(Dataset points, int limit) {
+        DistinctCounter counter = new DistinctCounter(limit);
+        double[] x = new double[DataLoader.CHUNK_SIZE];
+        double[] y = new double[DataLoader.CHUNK_SIZE];
+        for (long from = 0; from < points.size() && !counter.isDone(); from += x.length) {
+            int n = (int) Math.min(x.length, points.size() - from);
+            points.read(from, x, y, n);
+            counter.accept(x, y, n);
+        }
+        return counter.getCount();
+    }
+
+    //Distinct x values seen so far, at most 'limit'
+    public int getCount() {
+        return count;
+    }
+
+    //Whether 'limit' distinct values have been found
+    public boolean isDone() {
+        return count == seen.length;
+    }
+
+    public void accept(double[] x, double[] y, int n) {
+        for (int i = 0; i < n && count < seen.length; i++) {
+            int j = 0;
+            while (j < count && seen[j] != x[i]) {
+                j++;
+            }
+            if (j == count) {
+                seen[count++] = x[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package bestfit;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*Fits a polynomial to each of a set of data files without a display. Files are fit concurrently by a fixed
+  pool of workers, one file per worker at a time, and each result is written as soon as its fit finishes, so
+  the output is in completion order. A fixed degree streams each file through the loader twice (fit, then
+  residuals) and never holds its points; "auto" loads the points to choose the degree.
+
+  Usage: java -cp target/classes bestfit.FitCommand [--degree N|auto] [--max-degree N] [--criterion aic|bic|cv]
+                                                     [--format csv|json] [--threads N] [--output file] <file or directory>...
+
+  Directories are searched recursively for .csv, .txt, .bin and .f32 files (see DataLoader for the formats).
+  Coefficients are listed from the constant term up. Exits with status 1 if any file could not be fit, and 2 if
+  no data files were given */
+public class FitCommand {
+
+    private int degree = 1; //Degree to fit, or -1 to choose one
+    private int maxDegree = 10; //Highest degree tried when choosing
+    private DegreeSelector.Criterion criterion = DegreeSelector.Criterion.CROSS_VALIDATION;
+    private boolean json;
+
+    //What is known about one file after fitting it; 'error' is set instead of the fit if it failed
+    private static class Result {
+        Path file;
+        long points;
+        Polynomial polynomial;
+        int degree;
+        double rms, maxResidual;
+        long loadNanos, fitNanos;
+        String error;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        PrintWriter stdout = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        int status = execute(args, stdout);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /*Runs the command with the given arguments, writing results to 'stdout' unless --output names a file.
+      Returns the exit status: 0 if every file was fit, 1 if any failed and 2 if no data files were given */
+    static int execute(String[] args, PrintWriter stdout) throws IOException, InterruptedException {
+        FitCommand command = new FitCommand();
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = null;
+        List<Path> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--degree":
+                    String value = args[++i];
+                    command.degree = value.equalsIgnoreCase("auto") ? -1 : Integer.parseInt(value);
+                    break;
+                case "--max-degree": command.maxDegree = Integer.parseInt(args[++i]); break;
+                case "--criterion": command.criterion = parseCriterion(args[++i]); break;
+                case "--format": command.json = parseFormat(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--output": output = args[++i]; break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (command.degree < -1 || command.maxDegree < 0 || threads < 1) {
+            throw new IllegalArgumentException("The degree, maximum degree and thread count must not be negative");
+        }
+
+        List<Path> files = findFiles(inputs);
+        if (files.isEmpty()) {
+            System.err.println("No data files given");
+            return 2;
+        }
+
+        PrintWriter writer = output == null ? stdout : new PrintWriter(Files.newBufferedWriter(Paths.get(output)));
+        boolean failed;
+        try {
+            failed = command.run(files, Math.min(threads, files.size()), writer);
+        }
+        finally {
+            writer.flush();
+            if (output != null) {
+                writer.close();
+            }
+        }
+        return failed ? 1 : 0;
+    }
+
+    //Fits every file, writing results as they complete. Returns whether any file failed
+    private boolean run(List<Path> files, int threads, PrintWriter writer) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<Result> completion = new ExecutorCompletionService<>(pool);
+        try {
+            for (Path file : files) {
+                completion.submit(fitTask(file));
+            }
+            if (!json) {
+                writer.println("file,points,degree,coefficients,rms,max_residual,load_ms,fit_ms,error");
+            }
+
+            boolean failed = false;
+            for (int i = 0; i < files.size(); i++) {
+                Result result;
+                try {
+                    result = completion.take().get();
+                }
+                catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause()); //Tasks catch their own errors; this is a bug
+                }
+                failed |= result.error != null;
+                writer.println(json ? toJson(result) : toCsv(result));
+                writer.flush();
+            }
+            return failed;
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Callable<Result> fitTask(Path file) {
+        return () -> {
+            Result result = new Result();
+            result.file = file;
+            FitStageEvent event = FitStageEvent.start(Metrics.Stage.FIT);
+            try {
+                if (degree < 0) {
+                    fitAutomatic(result);
+                }
+                else {
+                    fitStreaming(result);
+                }
+                event.finish((int) Math.min(result.points, Integer.MAX_VALUE), result.degree + 1);
+            }
+            catch (IOException | RuntimeException e) {
+                result.polynomial = null;
+                result.error = e.toString();
+            }
+            return result;
+        };
+    }
+
+    //Fits a fixed degree from the accumulated sums, then computes the residuals on a second pass over the file
+    private void fitStreaming(Result result) throws IOException {
+        long start = System.nanoTime();
+        PolynomialFitter fitter = new PolynomialFitter(degree);
+        DistinctCounter distinct = new DistinctCounter(degree + 1);
+        result.points = DataLoader.load(result.file, (x, y, count) -> {
+            fitter.addAll(x, y, 0, count);
+            if (!distinct.isDone()) {
+                distinct.accept(x, y, count);
+            }
+        });
+        result.loadNanos = System.nanoTime() - start;
+        checkEnoughDistinct(distinct.getCount(), degree);
+
+        start = System.nanoTime();
+        if (fitter.conditionEstimate() <= Matrix.MAX_NORMAL_EQUATIONS_CONDITION) {
+            result.polynomial = fitter.getPolynomial();
+        }
+        else {
+            //The normal equations would lose too much precision; QR needs the rows, so read the file again
+            QRSolver solver = new QRSolver(degree + 1, 1);
+            DataLoader.load(result.file, solver::addPolynomialRows);
+            result.polynomial = new Polynomial(solver.solve());
+        }
+        checkFinite(result.polynomial);
+        result.degree = degree;
+
+        double[] fitted = new double[DataLoader.CHUNK_SIZE];
+        double[] stats = new double[2]; //Sum of squared residuals, largest absolute residual
+        DataLoader.load(result.file, (x, y, count) -> {
+            result.polynomial.evaluate(x, 0, fitted, 0, count);
+            accumulateResiduals(y, fitted, count, stats);
+        });
+        setResiduals(result, stats);
+        result.fitNanos = System.nanoTime() - start;
+    }
+
+    //Loads the points so the degree can be chosen, then fits and scores them in memory
+    private void fitAutomatic(Result result) throws IOException {
+        long start = System.nanoTime();
+        double[][] points = {new double[DataLoader.CHUNK_SIZE], new double[DataLoader.CHUNK_SIZE]};
+        int[] size = new int[1];
+        DataLoader.load(result.file, (x, y, count) -> {
+            if (size[0] + count > points[0].length) {
+                int capacity = Math.max(size[0] + count, 2*points[0].length);
+                points[0] = Arrays.copyOf(points[0], capacity);
+                points[1] = Arrays.copyOf(points[1], capacity);
+            }
+            System.arraycopy(x, 0, points[0], size[0], count);
+            System.arraycopy(y, 0, points[1], size[0], count);
+            size[0] += count;
+        });
+        double[] x = Arrays.copyOf(points[0], size[0]);
+        double[] y = Arrays.copyOf(points[1], size[0]);
+        result.points = size[0];
+        result.loadNanos = System.nanoTime() - start;
+        checkEnoughPoints(result.points, 0);
+
+        start = System.nanoTime();
+        DegreeSelector.Result selection = new DegreeSelector(maxDegree, criterion).select(x, y);
+        result.polynomial = selection.getPolynomial();
+        result.degree = selection.getDegree();
+        checkFinite(result.polynomial);
+
+        double[] fitted = new double[x.length];
+        double[] stats = new double[2];
+        result.polynomial.evaluate(x, fitted);
+        accumulateResiduals(y, fitted, x.length, stats);
+        setResiduals(result, stats);
+        result.fitNanos = System.nanoTime() - start;
+    }
+
+    private static void checkEnoughPoints(long points, int degree) {
+        if (points <= degree) {
+            throw new IllegalArgumentException(points + " points are not enough to fit a degree " + degree + " polynomial");
+        }
+    }
+
+    private static void checkEnoughDistinct(int distinct, int degree) {
+        if (distinct <= degree) {
+            throw new IllegalArgumentException(distinct + " distinct x values are not enough to fit a degree " + degree
+                    + " polynomial");
+        }
+    }
+
+    //The solvers divide by pivots without checking them, so a fit the data cannot determine shows up here
+    private static void checkFinite(Polynomial polynomial) {
+        for (double c : polynomial.coefficients) {
+            if (!Double.isFinite(c)) {
+                throw new ArithmeticException("The fit has a non-finite coefficient");
+            }
+        }
+    }
+
+    private static void accumulateResiduals(double[] y, double[] fitted, int count, double[] stats) {
+        for (int i = 0; i < count; i++) {
+            double r = y[i] - fitted[i];
+            stats[0] += r*r;
+            stats[1] = Math.max(stats[1], Math.abs(r));
+        }
+    }
+
+    private static void setResiduals(Result result, double[] stats) {
+        result.rms = Math.sqrt(stats[0]/result.points);
+        result.maxResidual = stats[1];
+    }
+
+    //Expands directories into the data files they contain, sorted so the submission order is repeatable
+    private static List<Path> findFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    files.addAll(walk.filter(Files::isRegularFile).filter(FitCommand::isDataFile).sorted()
+                            .collect(Collectors.toList()));
+                }
+            }
+            else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    private static boolean isDataFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".csv") || name.endsWith(".txt") || name.endsWith(".bin")
+                || name.endsWith(".f32");
+    }
+
+    private static DegreeSelector.Criterion parseCriterion(String name) {
+        switch (name.toLowerCase()) {
+            case "aic": return DegreeSelector.Criterion.AIC;
+            case "bic": return DegreeSelector.Criterion.BIC;
+            case "cv": return DegreeSelector.Criterion.CROSS_VALIDATION;
+            default: throw new IllegalArgumentException("Unknown criterion: " + name);
+        }
+    }
+
+    private static boolean parseFormat(String name) {
+        switch (name.toLowerCase()) {
+            case "csv": return false;
+            case "json": return true;
+            default: throw new IllegalArgumentException("Unknown format: " + name);
+        }
+    }
+
+    //One CSV row; the coefficients share a column, separated by spaces
+    private static String toCsv(Result r) {
+        String file = quoteCsv(r.file.toString());
+        if (r.error != null) {
+            return file + "," + r.points + ",,,,,,," + quoteCsv(r.error);
+        }
+        StringBuilder coefficients = new StringBuilder();
+        for (double c : r.polynomial.coefficients) {
+            if (coefficients.length() > 0) {
+                coefficients.append(' ');
+            }
+            coefficients.append(c);
+        }
+        return String.format(Locale.ROOT, "%s,%d,%d,%s,%s,%s,%.3f,%.3f,",
+                file, r.points, r.degree, coefficients, r.rms, r.maxResidual, r.loadNanos/1e6, r.fitNanos/1e6);
+    }
+
+    private static String toJson(Result r) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"file\":").append(quoteJson(r.file.toString())).append(",\"points\":").append(r.points);
+        if (r.error != null) {
+            return sb.append(",\"error\":").append(quoteJson(r.error)).append('}').toString();
+        }
+        sb.append(",\"degree\":").append(r.degree).append(",\"coefficients\":[");
+        for (int k = 0; k < r.polynomial.coefficients.length; k++) {
+            sb.append(k > 0 ? "," : "").append(jsonNumber(r.polynomial.coefficients[k]));
+        }
+        sb.append("],\"rms\":").append(jsonNumber(r.rms))
+          .append(",\"maxResidual\":").append(jsonNumber(r.maxResidual))
+          .append(String.format(Locale.ROOT, ",\"loadMillis\":%.3f,\"fitMillis\":%.3f}", r.loadNanos/1e6, r.fitNanos/1e6));
+        return sb.toString();
+    }
+
+    //JSON has no NaN or infinity
+    private static String jsonNumber(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+
+    private static String quoteCsv(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    //Quotes 'text' as a JSON string, escaping quotes, backslashes and control characters
+    static String quoteJson(String text) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            }
+            else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
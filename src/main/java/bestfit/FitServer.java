@@ -0,0 +1,385 @@
+package bestfit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*Serves polynomial fits over HTTP on the loopback interface.
+
+    POST /fit?degree=N   body: CSV points as read by DataLoader (one "x,y" per line)
+    -> {"degree":N,"coefficients":[c0,c1,...],"cached":false}
+
+  Coefficients are listed from the constant term up. A body with fewer than N + 1 distinct x values, or one
+  whose fit has a non-finite coefficient, gets a 400 response with {"error":"..."} and is not cached.
+
+  Each request runs on its own virtual thread when the JVM has them (Java 21 and later) and on a cached
+  thread pool otherwise.
+
+  Requests with the same x values and degree share the normal matrix, so those that arrive while a fit of
+  the same x is running are queued and then fit together by one BatchPolynomialFitter. An idle server fits
+  a request at once; batches only form under load, where they cut the work per request. Results are kept
+  in an LRU cache keyed by a SHA-256 hash of (degree, x, y), so a repeated request is answered without
+  fitting */
+public class FitServer {
+
+    public static final int MAX_DEGREE = 20;
+
+    //Most series fit together in one batch
+    private static final int MAX_BATCH = 64;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Map<String, double[]> cache;
+    private Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    //A fit waiting in a batch: its y values and where its coefficients go
+    private static class Pending {
+        double[] y;
+        String cacheKey;
+        CompletableFuture<double[]> result = new CompletableFuture<>();
+    }
+
+    /*Requests waiting to be fit with the same x values and degree. The first to arrive starts a drain task;
+      anything added while that task is fitting is taken as one batch when it finishes */
+    private class Batch {
+
+        private String key;
+        private double[] x;
+        private int degree;
+        private List<Pending> queue = new ArrayList<>();
+        private boolean draining;
+
+        Batch(String key, double[] x, int degree) {
+            this.key = key;
+            this.x = x;
+            this.degree = degree;
+        }
+
+        void submit(Pending pending) {
+            synchronized (this) {
+                queue.add(pending);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            executor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                List<Pending> batch;
+                synchronized (this) {
+                    if (queue.isEmpty()) {
+                        draining = false;
+                        batches.remove(key, this);
+                        return;
+                    }
+                    int size = Math.min(queue.size(), MAX_BATCH);
+                    batch = new ArrayList<>(queue.subList(0, size));
+                    queue.subList(0, size).clear();
+                }
+                try {
+                    FitStageEvent event = FitStageEvent.start(Metrics.Stage.FIT);
+                    double[][] coefficients = fitBatch(x, degree, batch);
+                    event.finish(x.length, degree + 1);
+                    for (int s = 0; s < batch.size(); s++) {
+                        //Only a determined fit is cached; non-finite y values, say, fail just their own series
+                        if (isFinite(coefficients[s])) {
+                            cachePut(batch.get(s).cacheKey, coefficients[s]);
+                            batch.get(s).result.complete(coefficients[s]);
+                        }
+                        else {
+                            batch.get(s).result.completeExceptionally(
+                                    new ArithmeticException("The fit has a non-finite coefficient"));
+                        }
+                    }
+                }
+                catch (RuntimeException e) {
+                    for (Pending pending : batch) {
+                        pending.result.completeExceptionally(e);
+                    }
+                }
+            }
+        }
+    }
+
+    //Listens on the given loopback port (0 picks a free one), caching the results of up to 'cacheSize' requests
+    public FitServer(int port, int cacheSize) throws IOException {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, double[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/fit", this::handleFit);
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int cacheSize = 1024;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--cache-size": cacheSize = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Metrics.register();
+        FitServer server = new FitServer(port, cacheSize);
+        server.start();
+        System.out.println("Listening on http://127.0.0.1:" + server.getPort() + "/fit");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    //Virtual threads are looked up reflectively so the server still builds and runs on Java 17
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "fit-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handleFit(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, error("Use POST"));
+                return;
+            }
+            int degree = parseDegree(exchange.getRequestURI());
+            double[][] points = parsePoints(exchange.getRequestBody().readAllBytes());
+            DistinctCounter distinct = new DistinctCounter(degree + 1);
+            distinct.accept(points[0], points[1], points[0].length);
+            if (distinct.getCount() <= degree) {
+                throw new IllegalArgumentException(distinct.getCount() + " distinct x values are not enough to fit a "
+                        + "degree " + degree + " polynomial");
+            }
+
+            //Hash x first so the same digest, continued over y, gives both the batch key and the cache key
+            MessageDigest digest = sha256();
+            digest.update((byte) degree);
+            update(digest, points[0]);
+            String batchKey = Base64.getEncoder().encodeToString(((MessageDigest) digest.clone()).digest());
+            update(digest, points[1]);
+            String cacheKey = Base64.getEncoder().encodeToString(digest.digest());
+
+            double[] coefficients = cacheGet(cacheKey);
+            boolean cached = coefficients != null;
+            if (!cached) {
+                Pending pending = new Pending();
+                pending.y = points[1];
+                pending.cacheKey = cacheKey;
+                batches.computeIfAbsent(batchKey, key -> new Batch(key, points[0], degree)).submit(pending);
+                coefficients = pending.result.get();
+            }
+            respond(exchange, 200, toJson(coefficients, cached));
+        }
+        catch (IllegalArgumentException | IOException e) {
+            respond(exchange, 400, error(e.getMessage()));
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof ArithmeticException) {
+                respond(exchange, 400, error(e.getCause().getMessage()));
+            }
+            else {
+                respond(exchange, 500, error(e.getCause().toString()));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, error("Interrupted"));
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e); //SHA-256 digests are cloneable in every JDK provider
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /*Fits every series in the batch against the shared x values, with the same fallback to QR for
+      ill-conditioned normal equations as the rest of the program */
+    private static double[][] fitBatch(double[] x, int degree, List<Pending> batch) {
+        int numSeries = batch.size();
+        BatchPolynomialFitter fitter = new BatchPolynomialFitter(x, degree);
+        if (fitter.conditionEstimate() <= Matrix.MAX_NORMAL_EQUATIONS_CONDITION) {
+            double[][] ySeries = new double[numSeries][];
+            for (int s = 0; s < numSeries; s++) {
+                ySeries[s] = batch.get(s).y;
+            }
+            Polynomial[] polynomials = fitter.fitAll(ySeries);
+            double[][] result = new double[numSeries][];
+            for (int s = 0; s < numSeries; s++) {
+                result[s] = polynomials[s].coefficients;
+            }
+            return result;
+        }
+
+        QRSolver solver = new QRSolver(degree + 1, numSeries);
+        double[] row = new double[degree + 1 + numSeries];
+        for (int i = 0; i < x.length; i++) {
+            double xPow = 1;
+            for (int k = 0; k <= degree; k++) {
+                row[k] = xPow;
+                xPow *= x[i];
+            }
+            for (int s = 0; s < numSeries; s++) {
+                row[degree + 1 + s] = batch.get(s).y[i];
+            }
+            solver.addRow(row);
+        }
+        Matrix coefficients = solver.solve();
+        double[][] result = new double[numSeries][degree + 1];
+        for (int s = 0; s < numSeries; s++) {
+            for (int k = 0; k <= degree; k++) {
+                result[s][k] = coefficients.getEntry(k, s);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isFinite(double[] coefficients) {
+        for (double c : coefficients) {
+            if (!Double.isFinite(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double[] cacheGet(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void cachePut(String key, double[] coefficients) {
+        synchronized (cache) {
+            cache.put(key, coefficients);
+        }
+    }
+
+    private static int parseDegree(URI uri) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("degree=")) {
+                    int degree;
+                    try {
+                        degree = Integer.parseInt(parameter.substring("degree=".length()));
+                    }
+                    catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Degree must be a whole number");
+                    }
+                    if (degree < 0 || degree > MAX_DEGREE) {
+                        throw new IllegalArgumentException("Degree must be between 0 and " + MAX_DEGREE);
+                    }
+                    return degree;
+                }
+            }
+        }
+        return 1;
+    }
+
+    //Returns {x, y} parsed from a CSV body
+    private static double[][] parsePoints(byte[] body) throws IOException {
+        double[][] points = {new double[64], new double[64]};
+        int[] size = new int[1];
+        DataLoader.parseCsv(ByteBuffer.wrap(body), (x, y, count) -> {
+            if (size[0] + count > points[0].length) {
+                int capacity = Math.max(size[0] + count, 2*points[0].length);
+                points[0] = Arrays.copyOf(points[0], capacity);
+                points[1] = Arrays.copyOf(points[1], capacity);
+            }
+            System.arraycopy(x, 0, points[0], size[0], count);
+            System.arraycopy(y, 0, points[1], size[0], count);
+            size[0] += count;
+        });
+        return new double[][] {Arrays.copyOf(points[0], size[0]), Arrays.copyOf(points[1], size[0])};
+    }
+
+    private static void update(MessageDigest digest, double[] values) {
+        ByteBuffer bytes = ByteBuffer.allocate(8*Math.min(values.length, 1024));
+        for (int i = 0; i < values.length; i++) {
+            if (!bytes.hasRemaining()) {
+                bytes.flip();
+                digest.update(bytes);
+                bytes.clear();
+            }
+            bytes.putDouble(values[i]);
+        }
+        bytes.flip();
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //Every Java platform is required to provide SHA-256
+        }
+    }
+
+    private static String toJson(double[] coefficients, boolean cached) {
+        StringBuilder sb = new StringBuilder("{\"degree\":").append(coefficients.length - 1).append(",\"coefficients\":[");
+        for (int k = 0; k < coefficients.length; k++) {
+            sb.append(k > 0 ? "," : "").append(coefficients[k]);
+        }
+        return sb.append("],\"cached\":").append(cached).append('}').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + FitCommand.quoteJson(String.valueOf(message)) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
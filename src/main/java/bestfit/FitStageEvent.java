@@ -0,0 +1,76 @@
+package bestfit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*JFR event covering one stage of fitting or drawing, such as building a Vandermonde matrix or a PLU
+  factorization. Events are only written while a recording has them enabled, e.g.
+      java -XX:StartFlightRecording=filename=fit.jfr,settings=profile -cp target/classes bestfit.GraphFrame
+  and the same call also feeds Metrics when that is enabled, so each stage is instrumented once:
+      FitStageEvent event = FitStageEvent.start(Metrics.Stage.MULTIPLY);
+      ...
+      event.finish(rows, columns);
+  With both turned off, start() checks two flags and returns a shared event that finish() ignores, so nothing
+  is allocated */
+@Name("bestfit.FitStage")
+@Label("Fit Stage")
+@Category("Best Fit")
+@Description("One stage of fitting or drawing a curve")
+@StackTrace(false)
+public class FitStageEvent extends Event {
+
+    @Label("Stage")
+    private String stage;
+
+    @Label("Rows")
+    private int rows;
+
+    @Label("Columns")
+    private int columns;
+
+    private static final EventType TYPE = EventType.getEventType(FitStageEvent.class);
+
+    //Handed out while neither JFR nor Metrics wants the event; it is never begun or committed
+    private static final FitStageEvent DISABLED = new FitStageEvent();
+
+    //Transient fields are not recorded by JFR
+    private transient Metrics.Stage metricsStage;
+    private transient long startNanos;
+    private transient boolean timed;
+
+    public static FitStageEvent start(Metrics.Stage stage) {
+        if (!Metrics.isEnabled() && !TYPE.isEnabled()) {
+            return DISABLED;
+        }
+        FitStageEvent event = new FitStageEvent();
+        event.metricsStage = stage;
+        if (Metrics.isEnabled()) {
+            event.timed = true;
+            event.startNanos = System.nanoTime();
+        }
+        event.begin();
+        return event;
+    }
+
+    //Ends the stage; 'rows' and 'columns' describe the size of the problem, such as a matrix's dimensions
+    public void finish(int rows, int columns) {
+        if (this == DISABLED) {
+            return;
+        }
+        end();
+        if (timed) {
+            Metrics.record(metricsStage, System.nanoTime() - startNanos);
+        }
+        if (shouldCommit()) {
+            stage = metricsStage.getLabel();
+            this.rows = rows;
+            this.columns = columns;
+            commit();
+        }
+    }
+}
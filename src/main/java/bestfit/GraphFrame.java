@@ -0,0 +1,679 @@
+package bestfit;
+
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+public class GraphFrame extends JFrame {
+
+    private JLabel xLabel, yLabel, degLabel, result;
+    private JPanel xPanel, yPanel, degPanel, inputPanel, dataPanel;
+    private JButton button, openButton;
+    private JTextField xText,yText, degText;
+    private Plot plot;
+    private Dataset data; //Points of the current fit, typed in or read from a file
+    private double[] dataBounds; //{smallest x, largest x, smallest y, largest y} of 'data', found by the FitWorker
+    private Path tempFile; //Temporary binary copy of the CSV file behind 'data', if any
+    private Curve fitCurve; //least-squares best fit polynomial, or smoothing spline
+    private FitWorker fitWorker; //Most recently started fit
+
+    //Minimum distance beteen two points before they are considered the same
+    private final double MIN_PRECISION = 0.00001;
+
+    //Highest degree tried when the degree is entered as "auto"
+    private final int MAX_AUTO_DEGREE = 10;
+
+    //Larger data sets choose their "auto" degree from an evenly spaced sample of this many points
+    private final int MAX_SELECTION_POINTS = 1 << 20;
+
+    //A spline gets one segment per this many points, up to MAX_SPLINE_SEGMENTS segments
+    private final int SPLINE_POINTS_PER_SEGMENT = 4;
+    private final int MAX_SPLINE_SEGMENTS = 200;
+
+    //Smoothing of a spline fit, relative to the number of points in each segment
+    private final double SPLINE_SMOOTHING = 0.1;
+
+    //Data sets with more points than this are drawn as a density map rather than point by point
+    private final int MAX_DRAWN_POINTS = 10000;
+
+    //Width and height in pixels of each square of the density map
+    private final int DENSITY_CELL = 3;
+
+    //Radius of every point in the plot
+    private final int POINT_RADIUS = 10;
+
+    //Top-left of the grid is 60 pixels right of the left GUI boundary
+    private final int RECT_X_START = 60;
+
+    //Top-left of the grid is 60 pixels right of the top GUI boundary
+    private final int RECT_Y_START = 60;
+
+
+    public GraphFrame() {
+        initializeComponents();
+    }
+
+    public void initializeComponents() {
+        setLayout(new BorderLayout());
+        xLabel = new JLabel("x values (separated by a space): ");
+        yLabel = new JLabel("y values (separated by a space): ");
+        degLabel = new JLabel("Enter the degree of the polynomial to fit the data (or \"auto\" or \"spline\"): ");
+        result = new JLabel("Best-fit polynomial: ");
+
+        button = new JButton("Graph");
+        button.addActionListener(new ButtonListener());
+        openButton = new JButton("Open file...");
+        openButton.addActionListener(new OpenListener());
+
+        //Panels/text fields for user input
+        xText = new JTextField(20);
+        yText = new JTextField(20);
+        degText = new JTextField(20);
+        xPanel = new JPanel();
+        xPanel.setLayout(new BorderLayout());
+        yPanel = new JPanel();
+        yPanel.setLayout(new BorderLayout());
+        degPanel = new JPanel();
+        degPanel.setLayout(new BorderLayout());
+
+        xPanel.add(xLabel, BorderLayout.WEST);
+        xPanel.add(xText, BorderLayout.CENTER);
+
+        yPanel.add(yLabel, BorderLayout.WEST);
+        yPanel.add(yText, BorderLayout.CENTER);
+
+        degPanel.add(degLabel, BorderLayout.WEST);
+        degPanel.add(degText, BorderLayout.CENTER);
+
+        //Panel consisting of the three user-input text fields/labels
+        inputPanel = new JPanel();
+        inputPanel.setLayout(new BorderLayout());
+        inputPanel.add(xPanel, BorderLayout.NORTH);
+        inputPanel.add(yPanel, BorderLayout.CENTER);
+        inputPanel.add(degPanel, BorderLayout.SOUTH);
+
+        //User input panel plus the "Calculate" button and the best-fit equation text
+        dataPanel = new JPanel();
+        dataPanel.setLayout(new BorderLayout());
+        dataPanel.add(inputPanel, BorderLayout.NORTH);
+        JPanel buttonPanel = new JPanel(new GridLayout(1, 2));
+        buttonPanel.add(button);
+        buttonPanel.add(openButton);
+        dataPanel.add(buttonPanel, BorderLayout.CENTER);
+        dataPanel.add(result, BorderLayout.SOUTH);
+
+        plot = new Plot();
+        plot.setBackground(Color.WHITE);
+        add(plot, BorderLayout.CENTER);
+        add(dataPanel, BorderLayout.SOUTH);
+    }
+
+    public static void main(String[] args) {
+        Metrics.register();
+        GraphFrame gFrame = new GraphFrame();
+        gFrame.setSize(600,500);
+        gFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        gFrame.setVisible(true);
+    }
+
+    private class ButtonListener implements ActionListener {
+
+        public void actionPerformed(ActionEvent event) {
+            try {
+
+                //Parse user input into arrays, ignoring space
+                double[] x = parseDoubleArray(xText.getText().trim().split(" +"));
+                double[] y = parseDoubleArray(yText.getText().trim().split(" +"));
+
+                if (x == null || y == null) {
+                    result.setText("Error: Must enter at least two data points");
+                }
+                else if (x.length != y.length) {
+                    result.setText("Error: Number of x and y data values must match");
+                }
+                else {
+                    startFit(new ArrayDataset(x, y), null);
+                }
+            }
+            catch (NumberFormatException e) {
+                result.setText("Error: Non-numerical data entered");
+            }
+        }
+
+        //Takes string containing doubles, returns a double array of those values
+        private double[] parseDoubleArray(String[] arr) {
+            double[] d = new double[arr.length];
+
+            for (int i = 0; i < d.length; i++) {
+                d[i] = Double.parseDouble(arr[i]);
+            }
+            return d;
+        }
+    }
+
+    /*Fits the points in a file chosen by the user: a binary file (.bin of doubles, .f32 of floats) is mapped
+      and read in place, and any other file is read as CSV and converted to a temporary binary file first */
+    private class OpenListener implements ActionListener {
+
+        public void actionPerformed(ActionEvent event) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(GraphFrame.this) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            try {
+                startFit(null, chooser.getSelectedFile().toPath());
+            }
+            catch (NumberFormatException e) {
+                result.setText("Error: Non-numerical data entered");
+            }
+        }
+    }
+
+    //Starts fitting 'points', or the points in 'file' if 'points' is null, abandoning any fit still in progress
+    private void startFit(Dataset points, Path file) {
+        boolean autoDegree = degText.getText().trim().equalsIgnoreCase("auto");
+        boolean spline = degText.getText().trim().equalsIgnoreCase("spline");
+        int deg = autoDegree ? 0 : spline ? 1 : Integer.parseInt(degText.getText()); //A spline needs two x values
+
+        //Compute LS-solution off the event thread
+        if (fitWorker != null) {
+            fitWorker.cancel(true);
+        }
+        fitWorker = new FitWorker(points, file, autoDegree, spline, deg);
+        result.setText(file == null ? "Fitting..." : "Loading " + file.getFileName() + "...");
+        fitWorker.execute();
+    }
+
+    //Returns {x, y} for every point of 'points', or for an evenly spaced sample of at most 'max' of them
+    private static double[][] sample(Dataset points, int max) {
+        long size = points.size();
+        long stride = (size + max - 1)/max;
+        int n = (int) ((size + stride - 1)/stride);
+        double[][] sample = new double[2][n];
+        long[] index = new long[1]; //Index of the first point of each chunk
+        points.forEachChunk((x, y, count) -> {
+            //First multiple of 'stride' at or after the start of the chunk
+            long next = (index[0] + stride - 1)/stride*stride;
+            for (long i = next; i < index[0] + count; i += stride) {
+                sample[0][(int) (i/stride)] = x[(int) (i - index[0])];
+                sample[1][(int) (i/stride)] = y[(int) (i - index[0])];
+            }
+            index[0] += count;
+        });
+        return sample;
+    }
+
+    //Returns {smallest x, largest x, smallest y, largest y} of 'points'
+    private static double[] bounds(Dataset points) {
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        points.forEachChunk((x, y, count) -> {
+            for (int i = 0; i < count; i++) {
+                bounds[0] = Math.min(bounds[0], x[i]);
+                bounds[1] = Math.max(bounds[1], x[i]);
+                bounds[2] = Math.min(bounds[2], y[i]);
+                bounds[3] = Math.max(bounds[3], y[i]);
+            }
+        });
+        return bounds;
+    }
+
+    /*Deletes a temporary file made by FitWorker.open(). Where a file cannot be deleted while it is still
+      mapped (as on Windows), deleteOnExit() removes it instead */
+    private static void deleteTempFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            //Left for deleteOnExit()
+        }
+    }
+
+    /*Computes the least-squares fit on a background thread so the interface stays responsive. The data and
+      fit are only handed to the frame in done(), on the event thread, and only if no newer fit has been
+      requested since. The bounds of the data are found here too, so the plot never has to scan the points
+      on the event thread to lay out its grid */
+    private class FitWorker extends SwingWorker<Curve, Void> {
+
+        private Dataset points;
+        private Path file; //File to read the points from, if 'points' is null
+        private boolean autoDegree;
+        private boolean spline;
+        private int deg; //Degree to fit; with 'autoDegree' set, the degree chosen
+        private double[] bounds; //Bounds of 'points', as in 'dataBounds'
+        private Path converted; //Temporary binary file the CSV file was converted into, if any
+
+        FitWorker(Dataset points, Path file, boolean autoDegree, boolean spline, int deg) {
+            this.points = points;
+            this.file = file;
+            this.autoDegree = autoDegree;
+            this.spline = spline;
+            this.deg = deg;
+        }
+
+        protected Curve doInBackground() throws IOException {
+            try {
+                Curve curve = fitPoints();
+                if (curve != null) {
+                    bounds = bounds(points);
+                }
+                return curve;
+            }
+            finally {
+                //done() may already have run on cancellation, before the file was made
+                if (isCancelled()) {
+                    deleteTempFile(converted);
+                }
+            }
+        }
+
+        private Curve fitPoints() throws IOException {
+            FitStageEvent event = FitStageEvent.start(Metrics.Stage.FIT);
+            if (points == null) {
+                points = open(file);
+            }
+            int unique = DistinctCounter.count(points, autoDegree ? MAX_AUTO_DEGREE + 1 : deg + 1);
+            if (unique < deg + 1) {
+                throw new IllegalArgumentException("must have at least " + (deg + 1) + " unique x-data points for a "
+                        + (spline ? "spline" : deg + "-degree polynomial approximation"));
+            }
+            int rows = (int) Math.min(points.size(), Integer.MAX_VALUE);
+
+            Curve curve;
+            if (spline) {
+                int segments = (int) Math.max(1, Math.min(MAX_SPLINE_SEGMENTS, points.size()/SPLINE_POINTS_PER_SEGMENT));
+                double lambda = SPLINE_SMOOTHING*points.size()/segments;
+                curve = SplineFitter.fit(points, segments, lambda);
+                event.finish(rows, segments + 3);
+            }
+            else {
+                Matrix coefficients = fit(Math.min(MAX_AUTO_DEGREE, unique - 1));
+                curve = coefficients == null ? null : new Polynomial(coefficients);
+                if (curve != null) {
+                    event.finish(rows, deg + 1);
+                }
+            }
+            return curve;
+        }
+
+        //Maps a binary file, or converts any other file from CSV into a temporary binary file and maps that
+        private Dataset open(Path file) throws IOException {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".bin") || name.endsWith(".f32")) {
+                return MappedDataset.open(file);
+            }
+            converted = Files.createTempFile("bestfit", ".bin");
+            converted.toFile().deleteOnExit();
+            try (MappedDataset.Writer writer = new MappedDataset.Writer(converted, MappedDataset.Precision.FLOAT64)) {
+                DataLoader.loadCsv(file, writer);
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return MappedDataset.open(converted, MappedDataset.Precision.FLOAT64);
+        }
+
+        //Returns the coefficients of the polynomial fit, or null if the worker was cancelled
+        private Matrix fit(int maxDeg) {
+            //Pick the degree that best predicts held-out points
+            if (autoDegree) {
+                double[][] selection = sample(points, MAX_SELECTION_POINTS);
+                deg = new DegreeSelector(maxDeg, DegreeSelector.Criterion.CROSS_VALIDATION)
+                        .select(selection[0], selection[1]).getDegree();
+            }
+            if (isCancelled()) {
+                return null;
+            }
+
+            PolynomialFitter fitter = new PolynomialFitter(deg);
+            fitter.setParallel(true);
+            fitter.addAll(points);
+            if (isCancelled()) {
+                return null;
+            }
+
+            //Fall back to QR when the normal equations would lose too much precision
+            if (fitter.conditionEstimate() <= Matrix.MAX_NORMAL_EQUATIONS_CONDITION) {
+                return fitter.solve();
+            }
+            return QRSolver.solvePolynomial(points, deg);
+        }
+
+        protected void done() {
+            if (isCancelled() || fitWorker != this) {
+                deleteTempFile(converted);
+                return;
+            }
+            try {
+                fitCurve = get();
+                if (tempFile != null && !tempFile.equals(converted)) {
+                    deleteTempFile(tempFile);
+                }
+                data = points;
+                dataBounds = bounds;
+                tempFile = converted;
+                if (spline) {
+                    result.setText("Best-fit spline: " + fitCurve);
+                }
+                else {
+                    result.setText("Best-fit line" + (autoDegree ? " (degree " + deg + ")" : "") + ": " + fitCurve);
+                }
+                plot.invalidateCache();
+                plot.repaint();
+            }
+            catch (InterruptedException e) {
+                //get() does not block once the worker is done, so this only happens if the event thread is interrupted
+                Thread.currentThread().interrupt();
+                result.setText("Error: Fitting was interrupted");
+                deleteTempFile(converted);
+            }
+            catch (ExecutionException e) {
+                deleteTempFile(converted);
+                Throwable cause = e.getCause();
+                boolean expected = cause instanceof IllegalArgumentException || cause instanceof IOException;
+                result.setText("Error: " + (expected ? cause.getMessage() : cause));
+            }
+        }
+    }
+
+    private class Plot extends JPanel {
+
+        private double maxX, minX, maxY, minY;
+        private int plotWidth, plotHeight;
+        private int rectXEnd, rectYEnd;
+
+        /*Everything drawn in the plot, rendered once and copied to the screen on each repaint. It is rebuilt
+          only when the data, the fit or the size of the plot changes */
+        private BufferedImage cache;
+
+        //Best fit curve sampled once per pixel column, starting at column 'curveStart'
+        private double[] curveY;
+        private int curveStart;
+
+        //Latest binning of a large data set for the density map, finished or not
+        private DensityWorker density;
+
+        public void paintComponent(Graphics g) {
+            FitStageEvent event = FitStageEvent.start(Metrics.Stage.PAINT);
+            super.paintComponent(g);
+            int width = Math.max(getWidth(), 1);
+            int height = Math.max(getHeight(), 1);
+            if (cache == null || cache.getWidth() != width || cache.getHeight() != height) {
+                cache = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D cacheGraphics = cache.createGraphics();
+                cacheGraphics.setColor(getForeground());
+                cacheGraphics.setFont(getFont());
+                drawGrid(cacheGraphics);
+                if (data != null) {
+                    plotPoints(cacheGraphics);
+                    labelAxes(cacheGraphics);
+                    plotBestFit(cacheGraphics);
+                }
+                cacheGraphics.dispose();
+            }
+            g.drawImage(cache, 0, 0, null);
+            event.finish(height, width);
+        }
+
+        //Discard the cached rendering after the data or fit has changed
+        public void invalidateCache() {
+            cache = null;
+        }
+
+        //Draw boundaries of graph
+        private void drawGrid(Graphics g) {
+            plotWidth = plot.getBounds().width;
+            plotHeight = plot.getBounds().height;
+            rectXEnd = plotWidth - 60;
+            rectYEnd = plotHeight - 60;
+
+            g.drawRect(RECT_X_START, RECT_Y_START, rectXEnd - RECT_X_START, rectYEnd - RECT_Y_START);
+
+            //Plot the "ticks" on the vertical and horizontal axes -- add 5 to space out
+            for (int i = RECT_Y_START + 5; i <= rectYEnd - 5;  i += (rectYEnd - RECT_Y_START - POINT_RADIUS)/10) {
+                g.drawLine(RECT_X_START - 5, i, RECT_X_START + 5, i);
+            }
+            for (int j = RECT_X_START + 5; j <= rectXEnd - 5;  j += (rectXEnd - RECT_X_START - POINT_RADIUS)/10) {
+                g.drawLine(j, rectYEnd - 5, j, rectYEnd + 5);
+            }
+        }
+
+        //Draw the curve through the samples taken by setGridBounds
+        private void plotBestFit(Graphics2D g) {
+            Path2D.Double path = new Path2D.Double();
+            path.moveTo(curveStart + 5, scaleY(curveY[0]) + 5); //Add 5 to make line centered through points
+            for (int i = 1; i < curveY.length; i++) {
+                path.lineTo(curveStart + i + 5, scaleY(curveY[i]) + 5);
+            }
+
+            g.setColor(Color.RED);
+            g.draw(path);
+        }
+
+        private void labelAxes(Graphics g) {
+            DecimalFormat dF = new DecimalFormat("0.00");
+
+            for (double i = RECT_Y_START + 5; i <= rectYEnd - 5;  i += (rectYEnd - RECT_Y_START - 10)/10) {
+                String yStr = dF.format(unscaleY(i - 5));
+                g.drawString(yStr, RECT_X_START - 7*(yStr.length()), (int)(i + 5));
+            }
+            for (double j = RECT_X_START + 5; j <= rectXEnd - 5;  j += (rectXEnd - RECT_X_START - 10)/10) {
+                g.drawString(dF.format(unscaleX(j - 5)), (int)(j - 10), rectYEnd + 20);
+            }
+        }
+
+        //Scale the grid based on the max/min values of the best fit curve and user-entered data
+        private void setGridBounds() {
+            minX = dataBounds[0];
+            maxX = dataBounds[1];
+            minY = dataBounds[2];
+            maxY = dataBounds[3];
+
+            //Spread out grid bounds more if max/min happen to be equal
+            if (maxX - minX < MIN_PRECISION) {
+                minX -= (minX/2.0) + 1;
+                maxX += (maxX/2.0) + 1;
+            }
+
+            //Sample the best fit curve once per pixel column (plus one past the end) in a single bulk evaluation
+            curveStart = scaleX(minX);
+            int numSamples = scaleX(maxX) - curveStart + 2;
+            double[] curveX = new double[numSamples];
+            curveY = new double[numSamples];
+            for (int i = 0; i < numSamples; i++) {
+                curveX[i] = unscaleX(curveStart + i);
+            }
+            fitCurve.evaluate(curveX, curveY);
+
+            /*Check if any of the best fit curve's y values are larger/smaller than the max/min, respectively, 
+              in the user-entered data*/
+            for (int i = 0; i < numSamples - 1; i++) {
+                if (curveY[i] < minY) {
+                    minY = curveY[i];
+                }
+                if (curveY[i] > maxY) {
+                    maxY = curveY[i];
+                }
+            }	
+
+            if (maxY - minY < MIN_PRECISION) {
+                minY -= (minY/2.0) + 1;
+                maxY += (maxY/2.0) + 1;
+            }
+        }
+
+        //Plot all the points on the graph
+        private void plotPoints(Graphics g) {
+            setGridBounds();
+            if (data.size() > MAX_DRAWN_POINTS) {
+                plotDensity(g);
+                return;
+            }
+            data.forEachChunk((x, y, count) -> {
+                for (int i = 0; i < count; i++) {
+                    int xCoor = scaleX(x[i]);
+                    int yCoor = scaleY(y[i]);
+                    g.fillOval(xCoor, yCoor, POINT_RADIUS, POINT_RADIUS);
+                }
+            });
+        }    
+
+        /*Plot large data sets as a density map: count the points falling in each DENSITY_CELL-pixel square,
+          then shade each occupied square by its count on a log scale. Counting reads every point, so it runs
+          on a DensityWorker, and the map appears when it finishes; the counts are kept until the data or the
+          layout of the grid changes. Drawing costs depend on the size of the plot rather than on the number
+          of points */
+        private void plotDensity(Graphics g) {
+            if (density == null || !density.matches()) {
+                if (density != null) {
+                    density.cancel(true);
+                }
+                density = new DensityWorker();
+                density.execute();
+            }
+            int[] counts = density.counts;
+            if (counts == null) {
+                return;
+            }
+            int cols = density.width/DENSITY_CELL + 1;
+            int rows = density.height/DENSITY_CELL + 1;
+
+            int maxCount = 0;
+            for (int count : counts) {
+                maxCount = Math.max(maxCount, count);
+            }
+
+            BufferedImage image = new BufferedImage(cols*DENSITY_CELL, rows*DENSITY_CELL, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            double logMax = Math.log1p(maxCount);
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    int count = counts[row*cols + col];
+                    if (count == 0) {
+                        continue;
+                    }
+                    //A lone point is drawn faintly, the most crowded cell opaque
+                    int alpha = (int) (64 + 191*Math.log1p(count)/logMax);
+                    int argb = alpha << 24;
+                    for (int dy = 0; dy < DENSITY_CELL; dy++) {
+                        int start = (row*DENSITY_CELL + dy)*image.getWidth() + col*DENSITY_CELL;
+                        Arrays.fill(pixels, start, start + DENSITY_CELL, argb);
+                    }
+                }
+            }
+            g.drawImage(image, 0, 0, null);
+        }
+
+        //Scale an x value into a pixel location on the graph based on the max/min x-values
+        public int scaleX(double val) {
+            return scaleX(val, minX, maxX, plotWidth);
+        }
+
+        //As above, for a graph 'width' pixels wide spanning minX ... maxX, so it can be used off the event thread
+        private int scaleX(double val, double minX, double maxX, int width) {
+            double prop = (val - minX)/(maxX - minX); //Proportion of val between minX and maxX
+            int leftShift = 2*RECT_X_START + POINT_RADIUS; //Ensures "maxX" point aligns with right-wall of grid
+            int rightShift = RECT_X_START; //Ensures "minX" point aligned with left-wall of grid
+
+            return (int)(prop*(width - leftShift) + rightShift);
+        }
+
+        //Same as above, but for y-values
+        public int scaleY(double val) {
+            return scaleY(val, minY, maxY, plotHeight);
+        }
+
+        private int scaleY(double val, double minY, double maxY, int height) {
+            double prop = ((val - minY)/(maxY - minY));
+            int downShift = 2*RECT_X_START  + POINT_RADIUS; //Ensures "maxY" point aligns with top-wall of grid
+            int upShift = RECT_Y_START + POINT_RADIUS; //Ensures "minY" point aligns with bottom-wall of grid
+
+            return (int)(height - prop*(height - downShift) - upShift);
+        }
+
+        //Inverse of "scaleY": take pixel location, return y-value associated with that position
+        public double unscaleY(double yCoor) {
+            int downShift = 2*RECT_X_START  + POINT_RADIUS; //Ensures "maxY" point aligns with top-wall of grid
+            int upShift = RECT_Y_START + POINT_RADIUS;
+
+            return -(yCoor + upShift - plotHeight)*(maxY - minY)/(plotHeight - downShift) + minY;
+        }
+
+        //Same as above for an x-value
+        public double unscaleX(double xCoor) {
+            int leftShift = 2*RECT_X_START + POINT_RADIUS;
+            int rightShift = RECT_X_START;
+
+            return (xCoor - rightShift)*(maxX - minX)/(plotWidth - leftShift) + minX;
+        }
+
+        /*Counts the points in each DENSITY_CELL-pixel square of the plot as it is laid out when the worker is
+          made, off the event thread. The plot is redrawn with the counts once they are ready */
+        private class DensityWorker extends SwingWorker<int[], Void> {
+
+            private Dataset points = data;
+            private int width = plotWidth, height = plotHeight;
+            private double minX = Plot.this.minX, maxX = Plot.this.maxX, minY = Plot.this.minY, maxY = Plot.this.maxY;
+            private int[] counts; //Set in done(), on the event thread
+
+            //Whether this worker bins the current data for the current layout of the plot
+            boolean matches() {
+                return points == data && width == plotWidth && height == plotHeight && minX == Plot.this.minX
+                        && maxX == Plot.this.maxX && minY == Plot.this.minY && maxY == Plot.this.maxY;
+            }
+
+            protected int[] doInBackground() {
+                int cols = width/DENSITY_CELL + 1;
+                int rows = height/DENSITY_CELL + 1;
+                int[] counts = new int[cols*rows];
+                double[] x = new double[DataLoader.CHUNK_SIZE];
+                double[] y = new double[DataLoader.CHUNK_SIZE];
+                for (long from = 0; from < points.size() && !isCancelled(); from += x.length) {
+                    int n = (int) Math.min(x.length, points.size() - from);
+                    points.read(from, x, y, n);
+                    for (int i = 0; i < n; i++) {
+                        //Bin by the center of where the point's oval would be drawn
+                        int col = (scaleX(x[i], minX, maxX, width) + POINT_RADIUS/2)/DENSITY_CELL;
+                        int row = (scaleY(y[i], minY, maxY, height) + POINT_RADIUS/2)/DENSITY_CELL;
+                        if (col >= 0 && col < cols && row >= 0 && row < rows) {
+                            counts[row*cols + col]++;
+                        }
+                    }
+                }
+                return counts;
+            }
+
+            protected void done() {
+                if (isCancelled() || density != this) {
+                    return;
+                }
+                try {
+                    counts = get();
+                    invalidateCache();
+                    repaint();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException e) {
+                    result.setText("Error: " + e.getCause());
+                }
+            }
+        }
+    } 
+}
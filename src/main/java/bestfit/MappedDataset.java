@@ -0,0 +1,176 @@
+package bestfit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*A Dataset read straight from a memory-mapped binary file of little-endian (x, y) pairs, stored either as
+  doubles (FLOAT64, the format DataLoader reads) or as floats (FLOAT32, half the size at about 7 significant
+  digits). The points stay in the page cache, outside the heap, so data sets far larger than the heap can be
+  fit and drawn, and opening a file costs only the mapping however large it is.
+
+  Files are written by MappedDataset.Writer, e.g. to convert a CSV file once:
+      try (MappedDataset.Writer writer = new MappedDataset.Writer(out, Precision.FLOAT32)) {
+          DataLoader.loadCsv(csv, writer);
+      } */
+public class MappedDataset implements Dataset {
+
+    public enum Precision {
+        FLOAT64(8), FLOAT32(4);
+
+        private final int bytes; //Size of one value
+
+        Precision(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    //Largest region mapped at once, below the 2 GB limit of a single mapping and a whole number of points
+    private static final long MAX_MAP_SIZE = 1L << 30;
+
+    private ByteBuffer[] regions;
+    private int pointsPerRegion;
+    private int pointBytes;
+    private long size;
+    private Precision precision;
+
+    private MappedDataset(ByteBuffer[] regions, int pointsPerRegion, long size, Precision precision) {
+        this.regions = regions;
+        this.pointsPerRegion = pointsPerRegion;
+        this.size = size;
+        this.precision = precision;
+        pointBytes = 2*precision.bytes;
+    }
+
+    //Opens a file of floats if its name ends in ".f32", and of doubles otherwise
+    public static MappedDataset open(Path file) throws IOException {
+        boolean floats = file.getFileName().toString().toLowerCase().endsWith(".f32");
+        return open(file, floats ? Precision.FLOAT32 : Precision.FLOAT64);
+    }
+
+    public static MappedDataset open(Path file, Precision precision) throws IOException {
+        return open(file, precision, MAX_MAP_SIZE);
+    }
+
+    //Maps at most 'maxMapSize' bytes at a time, so tests can split a small file into several regions
+    static MappedDataset open(Path file, Precision precision, long maxMapSize) throws IOException {
+        int pointBytes = 2*precision.bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % pointBytes != 0) {
+                throw new IOException(file + " is not a whole number of " + precision + " (x, y) pairs");
+            }
+            int pointsPerRegion = (int) (maxMapSize/pointBytes);
+            long size = bytes/pointBytes;
+            ByteBuffer[] regions = new ByteBuffer[(int) ((size + pointsPerRegion - 1)/pointsPerRegion)];
+            for (int r = 0; r < regions.length; r++) {
+                long position = (long) r*pointsPerRegion*pointBytes;
+                long length = Math.min((long) pointsPerRegion*pointBytes, bytes - position);
+                regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            //A mapping stays valid after its channel is closed
+            return new MappedDataset(regions, pointsPerRegion, size, precision);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    //Uses absolute reads only, so any number of threads can read at once
+    public void read(long from, double[] x, double[] y, int count) {
+        if (from < 0 || count < 0 || from + count > size) {
+            throw new IndexOutOfBoundsException("Points " + from + " to " + (from + count) + " lie outside a data set of " + size);
+        }
+        int done = 0;
+        while (done < count) {
+            long point = from + done;
+            ByteBuffer region = regions[(int) (point/pointsPerRegion)];
+            int index = (int) (point%pointsPerRegion);
+            int n = Math.min(count - done, pointsPerRegion - index);
+            int byteIndex = index*pointBytes;
+            if (precision == Precision.FLOAT64) {
+                for (int i = done; i < done + n; i++) {
+                    x[i] = region.getDouble(byteIndex);
+                    y[i] = region.getDouble(byteIndex + 8);
+                    byteIndex += 16;
+                }
+            }
+            else {
+                for (int i = done; i < done + n; i++) {
+                    x[i] = region.getFloat(byteIndex);
+                    y[i] = region.getFloat(byteIndex + 4);
+                    byteIndex += 8;
+                }
+            }
+            done += n;
+        }
+    }
+
+    //Writes points, as passed to accept(), to a file that MappedDataset can open
+    public static class Writer implements DataLoader.PointConsumer, Closeable {
+
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private Precision precision;
+        private long count;
+
+        public Writer(Path file, Precision precision) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocateDirect(2*precision.bytes*DataLoader.CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            this.precision = precision;
+        }
+
+        //Number of points written so far
+        public long getCount() {
+            return count;
+        }
+
+        public void accept(double[] x, double[] y, int count) {
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (!buffer.hasRemaining()) {
+                        flush();
+                    }
+                    if (precision == Precision.FLOAT64) {
+                        buffer.putDouble(x[i]).putDouble(y[i]);
+                    }
+                    else {
+                        buffer.putFloat((float) x[i]).putFloat((float) y[i]);
+                    }
+                }
+                this.count += count;
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void close() throws IOException {
+            try {
+                flush();
+            }
+            finally {
+                channel.close();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
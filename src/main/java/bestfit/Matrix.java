@@ -0,0 +1,332 @@
+package bestfit;
+
+public class Matrix {
+
+    //How a least-squares problem is solved: see solveLeastSquares(Matrix, LeastSquaresMode)
+    public enum LeastSquaresMode { NORMAL_EQUATIONS, QR, ADAPTIVE }
+
+    /*Largest condition number of a normal matrix for which the ADAPTIVE mode trusts the normal equations.
+      Their relative error grows with cond(a-transpose * a) * machine epsilon, so this keeps roughly eight
+      significant digits */
+    public static final double MAX_NORMAL_EQUATIONS_CONDITION = 1e8;
+
+    //Widest b for which transposeMultiply sums row outer products rather than running the tiled product
+    private static final int TRANSPOSE_MULTIPLY_MAX_COLUMNS = 16;
+
+    /*Entries are kept in one flat array. The entry at (row, col) lives at
+      data[offset + row*rowStride + col*colStride], which lets transposes, submatrices
+      and columns share the array of the matrix they were taken from */
+    private double[] data;
+    private int offset;
+    private int rowStride;
+    private int colStride;
+    private int numRow;
+    private int numCol;
+
+    public Matrix(double[][] entries) {
+        this(entries.length, entries[0].length);
+        setEntries(entries);
+    }
+
+    public Matrix(int numRow, int numCol) {
+        this.numRow = numRow;
+        this.numCol = numCol;
+        data = new double[numRow*numCol];
+        rowStride = numCol;
+        colStride = 1;
+    }
+
+    /*Creates a matrix with entries of the form
+      |1 entries[0] ...                  entries[0]^(entries.length - 1)					|
+      |1 entries[1] ...				    entries[1]^(entries.length - 1)					|
+      |...																				|
+      |1 entries[entries.length - 1] ... entries[entries.length - 1]^(entries.length - 1)|
+     */
+    public Matrix(int numCol, double[] entries) {
+        this(entries.length, numCol);
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.VANDERMONDE);
+        for (int i = 0; i < numRow; i++) {
+            double xPow = 1;
+            for (int j = 0; j < numCol; j++) {
+                data[i*numCol + j] = xPow;
+                xPow *= entries[i];
+            }
+        }
+        event.finish(numRow, numCol);
+    }
+
+    /*Creates a matrix with entries of the form
+      |entries[0]				  |
+      |entries[1]				  |
+      |...						  |
+      |entries[entries.length - 1]|
+     */
+    public Matrix(double entries[]) {
+        this(entries.length, 1);
+        System.arraycopy(entries, 0, data, 0, numRow);
+    }
+
+    //Creates a copy of 'm' with its own contiguous storage, even if 'm' is a view
+    public Matrix(Matrix m) {
+        this(m.numRow, m.numCol);
+        if (m.isContiguous()) {
+            System.arraycopy(m.data, m.offset, data, 0, data.length);
+        }
+        else {
+            for (int i = 0; i < numRow; i++) {
+                for (int j = 0; j < numCol; j++) {
+                    data[i*numCol + j] = m.getEntry(i, j);
+                }
+            }
+        }
+    }
+
+
+    //Create an identity matrix with length/width equal to numRow
+    public Matrix(int numRow) {
+        this(numRow, numRow);
+        for (int i = 0; i < numRow; i++) {
+            data[i*numRow + i] = 1;
+        }
+    }
+
+    //Creates a view onto another matrix's storage: no entries are copied
+    private Matrix(double[] data, int offset, int numRow, int numCol, int rowStride, int colStride) {
+        this.data = data;
+        this.offset = offset;
+        this.numRow = numRow;
+        this.numCol = numCol;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+    }
+
+    public int getNumRow() {
+        return numRow;
+    }
+
+    public int getNumCol() {
+        return numCol;
+    }
+
+    //Raw storage for MatrixKernels: entry (row, col) is getData()[getOffset() + row*getRowStride() + col*getColStride()]
+    double[] getData() {
+        return data;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getRowStride() {
+        return rowStride;
+    }
+
+    int getColStride() {
+        return colStride;
+    }
+
+    public double getEntry(int row, int col) {
+        return data[offset + row*rowStride + col*colStride];
+    }
+
+    //Returns a copy of the entries as a two-dimensional array; changes to it do not affect the matrix
+    public double[][] getEntries() {
+        double[][] entries = new double[numRow][numCol];
+        for (int i = 0; i < numRow; i++) {
+            if (colStride == 1) {
+                System.arraycopy(data, offset + i*rowStride, entries[i], 0, numCol);
+            }
+            else {
+                for (int j = 0; j < numCol; j++) {
+                    entries[i][j] = getEntry(i, j);
+                }
+            }
+        }
+        return entries;
+    }
+
+    public void setEntry(int row, int col, double val) {
+        data[offset + row*rowStride + col*colStride] = val;
+    }
+
+    public void setEntries(double[][] entries) {
+        for (int i= 0; i < entries.length; i++) {
+            if (colStride == 1) {
+                System.arraycopy(entries[i], 0, data, offset + i*rowStride, entries[0].length);
+            }
+            else {
+                for (int j = 0; j < entries[0].length; j++) {
+                    setEntry(i, j, entries[i][j]);
+                }
+            }
+        }
+    }
+
+    //Multiply two matrices, return the product
+    public Matrix multiply(Matrix b) {
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.MULTIPLY);
+        Matrix product;
+        if ((long) numRow*numCol*b.numCol >= MatrixKernels.KERNEL_THRESHOLD) {
+            //Large products are tiled for the cache and split between threads
+            product = MatrixKernels.multiply(this, b);
+        }
+        else {
+            product = multiplySmall(b);
+        }
+        event.finish(numRow, b.numCol);
+        return product;
+    }
+
+    //The simple triple loop, also the reference the blocked kernels are tested against
+    Matrix multiplySmall(Matrix b) {
+        Matrix product = new Matrix(numRow,b.numCol);
+        double[] p = product.data;
+
+        /*Loop order i-k-j so that the innermost loop walks along a row of 'b' and of the product
+          rather than down a column */
+        for (int i= 0; i < numRow; i++) {
+            int pRow = i*product.numCol;
+            for (int k = 0; k < numCol; k++) {
+                double aik = getEntry(i, k);
+                int bIndex = b.offset + k*b.rowStride;
+                for (int j = 0; j < product.numCol; j++) {
+                    p[pRow + j] += aik * b.data[bIndex];
+                    bIndex += b.colStride;
+                }
+            }
+        }
+        return product;
+    }
+
+    /*Returns this-transpose * b without forming the transpose. With b == this the product is symmetric, and
+      only one triangle is computed. Large products are split between threads */
+    public Matrix transposeMultiply(Matrix b) {
+        if (b.numRow != numRow) {
+            throw new IllegalArgumentException("Expected " + numRow + " rows but found " + b.numRow);
+        }
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.MULTIPLY);
+        Matrix product;
+        long work = (long) numRow*numCol*b.numCol;
+        if (work < MatrixKernels.KERNEL_THRESHOLD) {
+            product = transpose().multiplySmall(b);
+        }
+        else if (b == this) {
+            product = MatrixKernels.transposeMultiplySelf(this);
+        }
+        else if (b.numCol <= TRANSPOSE_MULTIPLY_MAX_COLUMNS) {
+            product = MatrixKernels.transposeMultiply(this, b);
+        }
+        else {
+            product = MatrixKernels.multiply(transpose(), b);
+        }
+        event.finish(numCol, b.numCol);
+        return product;
+    }
+
+    public void swapRow(int rowA, int rowB) {
+        int a = offset + rowA*rowStride;
+        int b = offset + rowB*rowStride;
+        for (int i = 0; i < numCol; i++) {
+            double temp = data[a];
+            data[a] = data[b];
+            data[b] = temp;
+            a += colStride;
+            b += colStride;
+        }
+    }
+
+    /*Returns the transpose of a maitrx: ith row becomes ith column, jth column becomes jth row.
+      The transpose is a view, so it shares entries with this matrix */
+    public Matrix transpose() {
+        return new Matrix(data, offset, numCol, numRow, colStride, rowStride);
+    }
+
+    //Returns a view of the numRow x numCol block whose top-left entry is (row, col)
+    public Matrix submatrix(int row, int col, int numRow, int numCol) {
+        if (row < 0 || col < 0 || row + numRow > this.numRow || col + numCol > this.numCol) {
+            throw new IndexOutOfBoundsException("Submatrix lies outside of a " + this.numRow + "x" + this.numCol + " matrix");
+        }
+        return new Matrix(data, offset + row*rowStride + col*colStride, numRow, numCol, rowStride, colStride);
+    }
+
+    //Returns a view of the col'th column as a numRow x 1 matrix
+    public Matrix column(int col) {
+        return submatrix(0, col, numRow, 1);
+    }
+
+    //True if entries are stored row after row with no gaps, i.e. the matrix is not a transposed or partial view
+    private boolean isContiguous() {
+        return colStride == 1 && (rowStride == numCol || numRow == 1);
+    }
+
+    public void printEntries() {
+        for (int i = 0; i < numRow; i++) {
+            for (int j = 0; j < numCol; j++) {
+                System.out.print(getEntry(i, j) + " ");
+            }
+            System.out.println();
+        }
+    }
+
+    /*Takes inverse of a Matrix. First finds PLU facotrization: P*A = L*U,
+      then solves A * AInv = I one column of the identity at a time */
+    public Matrix invert() {
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.INVERT);
+        Matrix inverse = new PLUFactorization(this).solve(new Matrix(numRow));
+        event.finish(numRow, numCol);
+        return inverse;
+    }
+
+    /*a.solveLeastSquares(b) finds the least-squares solution to a * x = b by solving the normal equations
+      (a-transpose * a) * x = a-transpose * b */
+    public Matrix solveLeastSquares(Matrix b) {
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.SOLVE_LEAST_SQUARES);
+        Matrix x = transposeMultiply(this).solvePositiveDefinite(transposeMultiply(b));
+        event.finish(numRow, numCol);
+        return x;
+    }
+
+    /*Finds the least-squares solution to a * x = b using the given mode. NORMAL_EQUATIONS is fastest but
+      squares the condition number of 'a'. QR uses Householder reflections on 'a' itself and keeps full
+      accuracy on ill-conditioned problems such as high-degree polynomial fits. ADAPTIVE Cholesky-factors the
+      normal matrix and uses it only if its estimated condition number is at most
+      MAX_NORMAL_EQUATIONS_CONDITION, otherwise switching to QR */
+    public Matrix solveLeastSquares(Matrix b, LeastSquaresMode mode) {
+        if (mode == LeastSquaresMode.NORMAL_EQUATIONS) {
+            return solveLeastSquares(b);
+        }
+
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.SOLVE_LEAST_SQUARES);
+        if (mode == LeastSquaresMode.ADAPTIVE) {
+            try {
+                CholeskyFactorization fac = new CholeskyFactorization(transposeMultiply(this));
+                if (fac.conditionEstimate() <= MAX_NORMAL_EQUATIONS_CONDITION) {
+                    Matrix x = fac.solve(transposeMultiply(b));
+                    event.finish(numRow, numCol);
+                    return x;
+                }
+            }
+            catch (ArithmeticException e) {
+                //Not numerically positive definite, so certainly too ill-conditioned: use QR
+            }
+        }
+
+        QRSolver qr = new QRSolver(numCol, b.numCol);
+        qr.addRows(this, b);
+        Matrix x = qr.solve();
+        event.finish(numRow, numCol);
+        return x;
+    }
+
+    /*Solves this * x = b for a symmetric positive-definite matrix, such as a normal matrix. The matrix is
+      Cholesky-factored and solved by substitution rather than inverted */
+    public Matrix solvePositiveDefinite(Matrix b) {
+        try {
+            return new CholeskyFactorization(this).solve(b);
+        }
+        catch (ArithmeticException e) {
+            //Rounding has made the matrix lose definiteness: fall back to a pivoted LU solve
+            return new PLUFactorization(this).solve(b);
+        }
+    }
+}
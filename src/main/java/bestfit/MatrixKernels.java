@@ -0,0 +1,253 @@
+package bestfit;
+
+import java.util.stream.IntStream;
+
+/*Blocked, multithreaded kernels behind Matrix.multiply and Matrix.transposeMultiply for large operands.
+  Operands may be views with any strides; the kernels read them through their strides and pack what they
+  reuse into contiguous tiles, so no transpose or copy of a whole operand is ever made.
+
+  Work is split into pieces that depend only on the operand sizes, never on the number of threads, and
+  partial results are combined in a fixed order, so results are the same from run to run and machine to
+  machine */
+final class MatrixKernels {
+
+    //Products with at least this many multiply-adds are worth the blocked kernels
+    static final long KERNEL_THRESHOLD = 1L << 15;
+
+    //Products with at least this many multiply-adds are split between threads
+    static final long PARALLEL_THRESHOLD = 1L << 21;
+
+    //GEMM tiles: a KC x NC tile of 'b' (256 KB) is packed and shared by tasks of MC rows of the product
+    private static final int MC = 64;
+    private static final int KC = 128;
+    private static final int NC = 256;
+
+    //Entries in a packed panel of rows for A-transpose * A, sized to stay in cache
+    private static final int PANEL_ENTRIES = 1 << 14;
+
+    //Rows per task in the row-split kernels, and a bound on the memory their partial results may take
+    private static final int CHUNK_ROWS = 1 << 13;
+    private static final long MAX_PARTIAL_ENTRIES = 1L << 24;
+
+    //Columns of C = A-transpose * A per task
+    private static final int SYRK_BLOCK = 32;
+
+    private MatrixKernels() {
+    }
+
+    /*C = A * B. For each KC x NC tile of B, every row of C is updated by the i-k-j loop over the tile, so the
+      innermost loop runs along contiguous rows of the packed tile and of C. Each C entry is still summed in
+      order of k, which gives exactly the result of the simple loop in Matrix.multiply */
+    static Matrix multiply(Matrix a, Matrix b) {
+        int m = a.getNumRow();
+        int depth = a.getNumCol();
+        int n = b.getNumCol();
+        Matrix product = new Matrix(m, n);
+        double[] c = product.getData();
+        double[] aData = a.getData();
+        int aOffset = a.getOffset(), aRowStride = a.getRowStride(), aColStride = a.getColStride();
+        boolean parallel = (long) m*depth*n >= PARALLEL_THRESHOLD;
+        double[] tile = new double[KC*NC];
+
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < depth; pc += KC) {
+                int kc = Math.min(KC, depth - pc);
+                pack(b, pc, jc, kc, nc, tile);
+
+                int first = pc, columns = jc;
+                IntStream blocks = IntStream.range(0, (m + MC - 1)/MC);
+                if (parallel) {
+                    blocks = blocks.parallel();
+                }
+                blocks.forEach(block -> {
+                    int end = Math.min(block*MC + MC, m);
+                    int i = block*MC;
+
+                    //Four rows of the product at a time, so each entry of the tile is loaded once per four updates
+                    for (; i + 4 <= end; i += 4) {
+                        int c0 = i*n + columns, c1 = c0 + n, c2 = c1 + n, c3 = c2 + n;
+                        int aIndex = aOffset + i*aRowStride + first*aColStride;
+                        for (int p = 0; p < kc; p++) {
+                            double a0 = aData[aIndex];
+                            double a1 = aData[aIndex + aRowStride];
+                            double a2 = aData[aIndex + 2*aRowStride];
+                            double a3 = aData[aIndex + 3*aRowStride];
+                            int tRow = p*nc;
+                            for (int j = 0; j < nc; j++) {
+                                double t = tile[tRow + j];
+                                c[c0 + j] += a0*t;
+                                c[c1 + j] += a1*t;
+                                c[c2 + j] += a2*t;
+                                c[c3 + j] += a3*t;
+                            }
+                            aIndex += aColStride;
+                        }
+                    }
+                    for (; i < end; i++) {
+                        int cRow = i*n + columns;
+                        int aIndex = aOffset + i*aRowStride + first*aColStride;
+                        for (int p = 0; p < kc; p++) {
+                            double aip = aData[aIndex];
+                            int tRow = p*nc;
+                            for (int j = 0; j < nc; j++) {
+                                c[cRow + j] += aip*tile[tRow + j];
+                            }
+                            aIndex += aColStride;
+                        }
+                    }
+                });
+            }
+        }
+        return product;
+    }
+
+    /*C = A-transpose * A, computing one triangle and mirroring it. Rows of A are packed a panel at a time
+      into a column-major buffer, so each entry of C is a dot product of two contiguous runs. The rows are
+      split into chunks and the columns of C into blocks; every (chunk, block) pair is a task, and the
+      chunks' partial sums are added in chunk order */
+    static Matrix transposeMultiplySelf(Matrix a) {
+        int m = a.getNumRow();
+        int n = a.getNumCol();
+        boolean parallel = (long) m*n*n/2 >= PARALLEL_THRESHOLD;
+        int chunks = parallel ? chunkCount(m, (long) n*n) : 1;
+        int chunkRows = (m + chunks - 1)/chunks;
+        int blocks = (n + SYRK_BLOCK - 1)/SYRK_BLOCK;
+        int panelRows = Math.max(16, PANEL_ENTRIES/Math.max(n, 1));
+        double[][] partial = new double[chunks][n*n];
+
+        IntStream tasks = IntStream.range(0, chunks*blocks);
+        if (parallel) {
+            tasks = tasks.parallel();
+        }
+        tasks.forEach(task -> {
+            int chunk = task/blocks;
+            int firstCol = (task%blocks)*SYRK_BLOCK;
+            int lastCol = Math.min(firstCol + SYRK_BLOCK, n);
+            int rowEnd = Math.min((chunk + 1)*chunkRows, m);
+            double[] sums = partial[chunk];
+            double[] panel = new double[n*panelRows];
+
+            for (int r0 = chunk*chunkRows; r0 < rowEnd; r0 += panelRows) {
+                int rows = Math.min(panelRows, rowEnd - r0);
+
+                //Only columns firstCol ... n - 1 appear in this block's share of the upper triangle
+                for (int col = firstCol; col < n; col++) {
+                    packColumn(a, r0, col, rows, panel, col*rows);
+                }
+                for (int i = firstCol; i < lastCol; i++) {
+                    int iStart = i*rows;
+                    for (int j = i; j < n; j++) {
+                        int jStart = j*rows;
+                        double dot = 0;
+                        for (int r = 0; r < rows; r++) {
+                            dot += panel[iStart + r]*panel[jStart + r];
+                        }
+                        sums[i*n + j] += dot;
+                    }
+                }
+            }
+        });
+
+        Matrix product = new Matrix(n, n);
+        double[] c = product.getData();
+        for (double[] sums : partial) {
+            for (int i = 0; i < n; i++) {
+                for (int j = i; j < n; j++) {
+                    c[i*n + j] += sums[i*n + j];
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                c[i*n + j] = c[j*n + i];
+            }
+        }
+        return product;
+    }
+
+    /*C = A-transpose * B for a B with few columns, such as a right-hand side. One pass over the rows adds
+      each row's outer product into C; chunks of rows are summed separately and added in chunk order */
+    static Matrix transposeMultiply(Matrix a, Matrix b) {
+        int m = a.getNumRow();
+        int n = a.getNumCol();
+        int k = b.getNumCol();
+        boolean parallel = (long) m*n*k >= PARALLEL_THRESHOLD;
+        int chunks = parallel ? chunkCount(m, (long) n*k) : 1;
+        int chunkRows = (m + chunks - 1)/chunks;
+        double[] aData = a.getData(), bData = b.getData();
+        int aOffset = a.getOffset(), aRowStride = a.getRowStride(), aColStride = a.getColStride();
+        int bOffset = b.getOffset(), bRowStride = b.getRowStride(), bColStride = b.getColStride();
+
+        IntStream tasks = IntStream.range(0, chunks);
+        if (parallel) {
+            tasks = tasks.parallel();
+        }
+        double[][] partial = tasks.mapToObj(chunk -> {
+            double[] sums = new double[n*k];
+            double[] bRow = new double[k];
+            int rowEnd = Math.min((chunk + 1)*chunkRows, m);
+            for (int r = chunk*chunkRows; r < rowEnd; r++) {
+                int bIndex = bOffset + r*bRowStride;
+                for (int j = 0; j < k; j++) {
+                    bRow[j] = bData[bIndex + j*bColStride];
+                }
+                int aIndex = aOffset + r*aRowStride;
+                for (int i = 0; i < n; i++) {
+                    double ari = aData[aIndex + i*aColStride];
+                    int row = i*k;
+                    for (int j = 0; j < k; j++) {
+                        sums[row + j] += ari*bRow[j];
+                    }
+                }
+            }
+            return sums;
+        }).toArray(double[][]::new);
+
+        Matrix product = new Matrix(n, k);
+        double[] c = product.getData();
+        for (double[] sums : partial) {
+            for (int i = 0; i < c.length; i++) {
+                c[i] += sums[i];
+            }
+        }
+        return product;
+    }
+
+    //Number of row chunks for a row-split kernel whose partial results have 'partialSize' entries each
+    private static int chunkCount(int rows, long partialSize) {
+        long byRows = (rows + CHUNK_ROWS - 1)/CHUNK_ROWS;
+        long byMemory = Math.max(1, MAX_PARTIAL_ENTRIES/Math.max(partialSize, 1));
+        return (int) Math.max(1, Math.min(byRows, byMemory));
+    }
+
+    //Copies the kc x nc block of 'b' at (row, col) into 'tile', row-major with nc entries per row
+    private static void pack(Matrix b, int row, int col, int kc, int nc, double[] tile) {
+        double[] data = b.getData();
+        int rowStride = b.getRowStride(), colStride = b.getColStride();
+        for (int p = 0; p < kc; p++) {
+            int index = b.getOffset() + (row + p)*rowStride + col*colStride;
+            int t = p*nc;
+            if (colStride == 1) {
+                System.arraycopy(data, index, tile, t, nc);
+            }
+            else {
+                for (int j = 0; j < nc; j++) {
+                    tile[t + j] = data[index];
+                    index += colStride;
+                }
+            }
+        }
+    }
+
+    //Copies 'rows' entries of column 'col' of 'a', starting at row 'row', into 'out' from 'outStart'
+    private static void packColumn(Matrix a, int row, int col, int rows, double[] out, int outStart) {
+        double[] data = a.getData();
+        int rowStride = a.getRowStride();
+        int index = a.getOffset() + row*rowStride + col*a.getColStride();
+        for (int r = 0; r < rows; r++) {
+            out[outStart + r] = data[index];
+            index += rowStride;
+        }
+    }
+}
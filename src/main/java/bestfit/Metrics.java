@@ -0,0 +1,237 @@
+package bestfit;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*Counts and latency histograms for each instrumented stage (see FitStageEvent). Disabled by default so the
+  hot paths only pay for a volatile read; enable it with -Dbestfit.metrics=true, setEnabled(true) or the
+  Enabled attribute of the JMX bean. After register(), each stage is published as
+  bestfit:type=Metrics,stage=<name> and the switch as bestfit:type=Metrics.
+
+  Latencies go into buckets four to a power of two, so percentiles are upper bounds within 25% of the true
+  value; recording is lock-free and never allocates */
+public final class Metrics {
+
+    public enum Stage {
+        VANDERMONDE("vandermonde"),
+        MULTIPLY("multiply"),
+        PLU_DECOMPOSE("pluDecompose"),
+        INVERT("invert"),
+        SOLVE_LEAST_SQUARES("solveLeastSquares"),
+        FIT("fit"),
+        PAINT("paint");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public interface MetricsMXBean {
+        boolean isEnabled();
+        void setEnabled(boolean enabled);
+        void reset();
+    }
+
+    //Times are in microseconds
+    public interface StageMXBean {
+        long getCount();
+        double getTotalMicros();
+        double getMeanMicros();
+        double getP50Micros();
+        double getP90Micros();
+        double getP99Micros();
+        double getMaxMicros();
+    }
+
+    //Buckets per power of two, as a number of bits
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1)*SUB_BUCKETS;
+
+    private static volatile boolean enabled = Boolean.getBoolean("bestfit.metrics");
+    private static final StageStatistics[] STATISTICS = new StageStatistics[Stage.values().length];
+    private static boolean registered;
+
+    static {
+        for (Stage stage : Stage.values()) {
+            STATISTICS[stage.ordinal()] = new StageStatistics();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    //Records one run of a stage that took 'nanos' nanoseconds
+    public static void record(Stage stage, long nanos) {
+        STATISTICS[stage.ordinal()].record(Math.max(nanos, 0));
+    }
+
+    public static StageMXBean get(Stage stage) {
+        return STATISTICS[stage.ordinal()];
+    }
+
+    public static void reset() {
+        for (StageStatistics statistics : STATISTICS) {
+            statistics.reset();
+        }
+    }
+
+    //Publishes the statistics through the platform MBean server; calling it again does nothing
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            registerIfAbsent(server, new Control(), new ObjectName("bestfit:type=Metrics"));
+            for (Stage stage : Stage.values()) {
+                registerIfAbsent(server, STATISTICS[stage.ordinal()],
+                        new ObjectName("bestfit:type=Metrics,stage=" + stage.getLabel()));
+            }
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics beans", e);
+        }
+        registered = true;
+    }
+
+    private static void registerIfAbsent(MBeanServer server, Object bean, ObjectName name) throws JMException {
+        try {
+            server.registerMBean(bean, name);
+        }
+        catch (InstanceAlreadyExistsException e) {
+            //Registered by another copy of this class, e.g. from a second class loader
+        }
+    }
+
+    private static class Control implements MetricsMXBean {
+
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        public void setEnabled(boolean enabled) {
+            Metrics.setEnabled(enabled);
+        }
+
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+
+    private static class StageStatistics implements StageMXBean {
+
+        private LongAdder count = new LongAdder();
+        private LongAdder totalNanos = new LongAdder();
+        private LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets.incrementAndGet(bucket(nanos));
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalMicros() {
+            return totalNanos.sum()/1e3;
+        }
+
+        public double getMeanMicros() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum()/1e3/n;
+        }
+
+        public double getP50Micros() {
+            return percentile(0.5);
+        }
+
+        public double getP90Micros() {
+            return percentile(0.9);
+        }
+
+        public double getP99Micros() {
+            return percentile(0.99);
+        }
+
+        public double getMaxMicros() {
+            return maxNanos.get()/1e3;
+        }
+
+        //Upper bound of the bucket holding the given fraction of the recorded latencies
+        private double percentile(double fraction) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction*total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketLimit(i), maxNanos.get())/1e3;
+                }
+            }
+            return maxNanos.get()/1e3;
+        }
+
+        /*Values below SUB_BUCKETS get a bucket each. Above that, the leading bit selects a power of two and the
+          next SUB_BUCKET_BITS bits select one of its sub-buckets */
+        private static int bucket(long nanos) {
+            if (nanos < SUB_BUCKETS) {
+                return (int) nanos;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exp - SUB_BUCKET_BITS + 1)*SUB_BUCKETS + sub;
+        }
+
+        //Smallest value above every value in the bucket
+        private static double bucketLimit(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket + 1;
+            }
+            int exp = bucket/SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int sub = bucket%SUB_BUCKETS;
+            return (double) (SUB_BUCKETS + sub + 1)*Math.pow(2, exp - SUB_BUCKET_BITS);
+        }
+    }
+}
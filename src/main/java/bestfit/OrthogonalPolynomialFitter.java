@@ -0,0 +1,169 @@
+package bestfit;
+
+import java.util.Arrays;
+
+/*Fits polynomials in a basis of discrete orthogonal polynomials (Forsythe's method). The basis is generated by
+  the three-term recurrence
+      p[k+1](x) = (x - alpha[k])*p[k](x) - beta[k]*p[k-1](x)
+  which makes every p[k] orthogonal to the others over the data points. Each coefficient is then a single
+  projection, so raising the degree by one costs O(N) and never disturbs the lower coefficients: a sweep
+  over degrees 0..d costs about as much as one fit, and no ill-conditioned system is ever solved */
+public class OrthogonalPolynomialFitter {
+
+    private double[] xData;
+    private double[] residual; //y minus the current fit at each point
+    private double[] pPrev, pCur; //Values of p[k-1] and p[k] at each point
+    private double pPrevNormSq, pCurNormSq; //Sums of p[k-1]^2 and p[k]^2 over the points
+    private int degree;
+
+    //Recurrence constants and orthogonal-basis coefficients c[k] for k <= degree
+    private double[] alpha, beta, c;
+    private double[] rss; //Residual sum of squares of the fit of each degree
+
+    //Monomial coefficients of p[k-1], p[k] and of the fit, kept up to date so conversion costs nothing extra
+    private double[] monoPrev, monoCur, monoFit;
+
+    //p[k+1] is treated as zero on the data, i.e. there are too few distinct x values, below this relative size
+    private static final double DEGENERATE_TOLERANCE = 1e-20;
+
+    //Fits the constant polynomial to (x[i], y[i]); call increaseDegree() to raise the degree
+    public OrthogonalPolynomialFitter(double[] xData, double[] yData) {
+        if (xData.length != yData.length || xData.length == 0) {
+            throw new IllegalArgumentException("Need the same, non-zero number of x and y values");
+        }
+        this.xData = xData;
+        int n = xData.length;
+        residual = yData.clone();
+        pPrev = new double[n];
+        pCur = new double[n];
+        Arrays.fill(pCur, 1);
+        pCurNormSq = n;
+
+        alpha = new double[4];
+        beta = new double[4];
+        c = new double[4];
+        rss = new double[4];
+        monoPrev = new double[4];
+        monoCur = new double[4];
+        monoFit = new double[4];
+        monoCur[0] = 1;
+        project();
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    //Raises the degree of the fit by one in O(N)
+    public void increaseDegree() {
+        int n = xData.length;
+        ensureCapacity(degree + 2);
+
+        double xpSum = 0;
+        for (int i = 0; i < n; i++) {
+            xpSum += xData[i]*pCur[i]*pCur[i];
+        }
+        double a = xpSum/pCurNormSq;
+        double b = degree == 0 ? 0 : pCurNormSq/pPrevNormSq;
+        alpha[degree] = a;
+        beta[degree] = b;
+
+        //Overwrite p[k-1] with p[k+1], then swap so pCur holds the newest polynomial
+        double normSq = 0;
+        double rawSq = 0;
+        for (int i = 0; i < n; i++) {
+            double shifted = (xData[i] - a)*pCur[i];
+            double next = shifted - b*pPrev[i];
+            pPrev[i] = next;
+            normSq += next*next;
+            rawSq += shifted*shifted;
+        }
+        if (!(normSq > DEGENERATE_TOLERANCE*rawSq)) {
+            throw new IllegalStateException("Not enough distinct x values to fit a degree " + (degree + 1) + " polynomial");
+        }
+        double[] temp = pPrev;
+        pPrev = pCur;
+        pCur = temp;
+        pPrevNormSq = pCurNormSq;
+        pCurNormSq = normSq;
+
+        //Same recurrence on the monomial coefficients: p[k+1] = x*p[k] - a*p[k] - b*p[k-1]
+        double[] monoNext = monoPrev;
+        for (int j = degree + 1; j >= 0; j--) {
+            double shifted = j > 0 ? monoCur[j - 1] : 0;
+            monoNext[j] = shifted - a*monoCur[j] - b*monoNext[j];
+        }
+        monoPrev = monoCur;
+        monoCur = monoNext;
+
+        degree++;
+        project();
+    }
+
+    //Raises the degree until it reaches 'target', returning the residual sum of squares for degrees 0..target
+    public double[] fitDegrees(int target) {
+        while (degree < target) {
+            increaseDegree();
+        }
+        return Arrays.copyOf(rss, target + 1);
+    }
+
+    //Residual sum of squares of the current fit
+    public double getResidualSumOfSquares() {
+        return rss[degree];
+    }
+
+    //Evaluates the current fit in the orthogonal basis by Clenshaw's recurrence, which is more stable than monomials
+    public double evaluate(double x) {
+        double b1 = 0, b2 = 0;
+        for (int k = degree; k >= 0; k--) {
+            double a = k < degree ? alpha[k] : 0;
+            double bNext = k + 1 < degree ? beta[k + 1] : 0;
+            double b0 = c[k] + (k < degree ? (x - a)*b1 : 0) - bNext*b2;
+            b2 = b1;
+            b1 = b0;
+        }
+        return b1;
+    }
+
+    //Converts the current fit to the monomial basis used by Polynomial
+    public Polynomial toPolynomial() {
+        return new Polynomial(Arrays.copyOf(monoFit, degree + 1));
+    }
+
+    //Projects the residual onto the newest basis polynomial, recording its coefficient and the new residual
+    private void project() {
+        int n = xData.length;
+        double dot = 0;
+        for (int i = 0; i < n; i++) {
+            dot += residual[i]*pCur[i];
+        }
+        double coeff = dot/pCurNormSq;
+        c[degree] = coeff;
+
+        double sumSq = 0;
+        for (int i = 0; i < n; i++) {
+            residual[i] -= coeff*pCur[i];
+            sumSq += residual[i]*residual[i];
+        }
+        rss[degree] = sumSq;
+
+        for (int j = 0; j <= degree; j++) {
+            monoFit[j] += coeff*monoCur[j];
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= alpha.length) {
+            return;
+        }
+        int newSize = Math.max(size, 2*alpha.length);
+        alpha = Arrays.copyOf(alpha, newSize);
+        beta = Arrays.copyOf(beta, newSize);
+        c = Arrays.copyOf(c, newSize);
+        rss = Arrays.copyOf(rss, newSize);
+        monoPrev = Arrays.copyOf(monoPrev, newSize);
+        monoCur = Arrays.copyOf(monoCur, newSize);
+        monoFit = Arrays.copyOf(monoFit, newSize);
+    }
+}
@@ -0,0 +1,144 @@
+package bestfit;
+
+public class PLUFactorization {
+
+    /*L and U are packed into one row-major n x n array: U sits on and above the diagonal and the multipliers
+      of L below it (L's unit diagonal is implied). P is kept as a permutation vector: row i of P*A is row
+      pivot[i] of A */
+    private double[] lu;
+    private int[] pivot;
+    private int n;
+
+    public PLUFactorization(Matrix m) {
+        n = m.getNumRow();
+        lu = new double[n*n];
+        pivot = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                lu[i*n + j] = m.getEntry(i, j);
+            }
+            pivot[i] = i;
+        }
+        decompose();
+    }
+
+    public Matrix getP() {
+        Matrix p = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            p.setEntry(i, pivot[i], 1);
+        }
+        return p;
+    }
+
+    public Matrix getL() {
+        Matrix l = new Matrix(n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                l.setEntry(i, j, lu[i*n + j]);
+            }
+        }
+        return l;
+    }
+
+    public Matrix getU() {
+        Matrix u = new Matrix(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                u.setEntry(i, j, lu[i*n + j]);
+            }
+        }
+        return u;
+    }
+
+    private void decompose() {
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.PLU_DECOMPOSE);
+        for (int i = 0; i < n; i++) {
+            //Swap rows so that the largest value in the i'th column is contained in the i'th row
+            double maxValue = lu[i*n + i];
+            int maxRow = i;
+            for (int k = i + 1; k < n; k++) {
+                if (Math.abs(lu[k*n + i]) > Math.abs(maxValue)) {
+                    maxValue = lu[k*n + i];
+                    maxRow = k;
+                }
+            }
+            if (maxRow != i) {
+                swapRow(maxRow, i);
+            }
+
+            //Reduce to upper-triangular form, storing each multiplier where it eliminated an entry
+            int iRow = i*n;
+            for (int k = i + 1; k < n; k++) {
+                int kRow = k*n;
+                double multiplier = lu[kRow + i]/lu[iRow + i];
+                lu[kRow + i] = multiplier;
+                for (int j = i + 1; j < n; j++) {
+                    lu[kRow + j] -= multiplier*lu[iRow + j];
+                }
+            }
+        }
+        event.finish(n, n);
+    }
+
+    private void swapRow(int rowA, int rowB) {
+        int a = rowA*n;
+        int b = rowB*n;
+        for (int j = 0; j < n; j++) {
+            double temp = lu[a + j];
+            lu[a + j] = lu[b + j];
+            lu[b + j] = temp;
+        }
+        int temp = pivot[rowA];
+        pivot[rowA] = pivot[rowB];
+        pivot[rowB] = temp;
+    }
+
+    //Solves A * x = b, where 'b' has one entry per row of A
+    public double[] solve(double[] b) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = b[pivot[i]];
+        }
+        substitute(x);
+        return x;
+    }
+
+    //Solves A * X = B for every column of 'b', reusing this factorization for each one
+    public Matrix solve(Matrix b) {
+        Matrix x = new Matrix(n, b.getNumCol());
+        double[] col = new double[n];
+
+        for (int j = 0; j < b.getNumCol(); j++) {
+            for (int i = 0; i < n; i++) {
+                col[i] = b.getEntry(pivot[i], j);
+            }
+            substitute(col);
+            for (int i = 0; i < n; i++) {
+                x.setEntry(i, j, col[i]);
+            }
+        }
+        return x;
+    }
+
+    //Overwrites P*b, already permuted into 'x', with the solution to L * U * x = P*b
+    private void substitute(double[] x) {
+
+        //Forward substitution with the unit lower-triangular L
+        for (int i = 1; i < n; i++) {
+            double sum = x[i];
+            for (int k = 0; k < i; k++) {
+                sum -= lu[i*n + k]*x[k];
+            }
+            x[i] = sum;
+        }
+
+        //Back substitution with U
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= lu[i*n + k]*x[k];
+            }
+            x[i] = sum/lu[i*n + i];
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package bestfit;
+
+import java.text.DecimalFormat;
+import java.util.Arrays;
+
+/*A curve made of polynomial pieces joined at breakpoints, such as a spline. Piece s covers
+  breakpoints[s] <= x < breakpoints[s + 1] and is stored in terms of the offset from the start of its
+  interval, which keeps its coefficients well scaled however far the data is from zero. Points before the
+  first or after the last breakpoint are extrapolated from the first or last piece. A piece is found by
+  binary search, so evaluating costs O(log k) for k pieces */
+public class PiecewisePolynomial implements Curve {
+
+    private double[] breakpoints;
+    private double[] coefficients; //Piece s is sum of coefficients[s*(degree + 1) + j]*(x - breakpoints[s])^j
+    private int degree;
+
+    /*Creates the curve with k = breakpoints.length - 1 pieces. 'coefficients' holds (degree + 1) values
+      per piece in order of increasing power of (x - breakpoints[s]) */
+    public PiecewisePolynomial(double[] breakpoints, double[] coefficients, int degree) {
+        if (breakpoints.length < 2 || coefficients.length != (breakpoints.length - 1)*(degree + 1)) {
+            throw new IllegalArgumentException("Need at least two breakpoints and " + (degree + 1)
+                    + " coefficients per piece");
+        }
+        for (int s = 1; s < breakpoints.length; s++) {
+            if (!(breakpoints[s] > breakpoints[s - 1])) {
+                throw new IllegalArgumentException("Breakpoints must be increasing");
+            }
+        }
+        this.breakpoints = breakpoints.clone();
+        this.coefficients = coefficients.clone();
+        this.degree = degree;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    public int getNumPieces() {
+        return breakpoints.length - 1;
+    }
+
+    public double[] getBreakpoints() {
+        return breakpoints.clone();
+    }
+
+    //Returns piece s as a polynomial in (x - breakpoints[s])
+    public Polynomial getPiece(int s) {
+        return new Polynomial(Arrays.copyOfRange(coefficients, s*(degree + 1), (s + 1)*(degree + 1)));
+    }
+
+    public double evaluate(double x) {
+        return evaluatePiece(piece(x), x);
+    }
+
+    /*Evaluates at every xs[i]. Each point's piece is checked first against the previous point's piece, so
+      sorted input, such as the samples of a plot, skips the binary search */
+    public void evaluate(double[] xs, double[] out) {
+        int s = 0;
+        for (int i = 0; i < xs.length; i++) {
+            double x = xs[i];
+            if (!(x >= breakpoints[s] && x < breakpoints[s + 1])) {
+                s = piece(x);
+            }
+            out[i] = evaluatePiece(s, x);
+        }
+    }
+
+    public String toString() {
+        DecimalFormat dF = new DecimalFormat("#.####");
+        return getNumPieces() + " pieces of degree " + degree + " on [" + dF.format(breakpoints[0]) + ", "
+                + dF.format(breakpoints[breakpoints.length - 1]) + "]";
+    }
+
+    //Index of the piece covering x, clamped to the first and last pieces
+    private int piece(double x) {
+        int found = Arrays.binarySearch(breakpoints, x);
+        int s = found >= 0 ? found : -found - 2; //Start of the interval holding x
+        return Math.max(0, Math.min(s, breakpoints.length - 2));
+    }
+
+    private double evaluatePiece(int s, double x) {
+        double t = x - breakpoints[s];
+        int first = s*(degree + 1);
+        double total = 0;
+        for (int j = degree; j >= 0; j--) {
+            total = total*t + coefficients[first + j];
+        }
+        return total;
+    }
+}
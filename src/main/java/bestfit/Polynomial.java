@@ -0,0 +1,92 @@
+package bestfit;
+
+import java.nio.DoubleBuffer;
+import java.text.DecimalFormat;
+
+public class Polynomial implements Curve {
+
+    double[] coefficients;
+
+    //Creates the polynomial coefficients[0] + coefficients[1]*x + coefficients[2]*x^2 + ...
+    public Polynomial(double[] coefficients) {
+        this.coefficients = coefficients.clone();
+    }
+
+    public Polynomial(Matrix coeffMat) {
+        coefficients = new double[coeffMat.getNumRow()];
+        for (int i = 0; i < coefficients.length; i++) {
+            coefficients[i] = coeffMat.getEntry(i, 0);
+        }
+    }
+
+    //Number of points evaluated together by the bulk methods
+    private static final int BLOCK_SIZE = 64;
+
+    //Returns the output for an input 'x', using Horner's rule
+    public double evaluate(double x) {
+        double total = 0;
+
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            total = total*x + coefficients[i];
+        }
+        return total;
+    }
+
+    //Evaluates the polynomial at every xs[i], storing the result in out[i]
+    public void evaluate(double[] xs, double[] out) {
+        evaluate(xs, 0, out, 0, xs.length);
+    }
+
+    /*Evaluates the polynomial at xs[xsOffset] ... xs[xsOffset + length - 1], storing the results from
+      out[outOffset] onwards. Horner's rule is applied to a block of points at a time with the points in the
+      inner loop, which keeps independent multiply-adds in flight and lets the JIT vectorize it */
+    public void evaluate(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        int deg = coefficients.length - 1;
+
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int end = Math.min(start + BLOCK_SIZE, length);
+            int xOff = xsOffset - outOffset;
+            for (int j = outOffset + start; j < outOffset + end; j++) {
+                out[j] = coefficients[deg];
+            }
+            for (int i = deg - 1; i >= 0; i--) {
+                double c = coefficients[i];
+                for (int j = outOffset + start; j < outOffset + end; j++) {
+                    out[j] = out[j]*xs[j + xOff] + c;
+                }
+            }
+        }
+    }
+
+    /*Evaluates the polynomial at each remaining value in 'xs', putting the results into 'out'. Both buffers'
+      positions advance by the number of values evaluated */
+    public void evaluate(DoubleBuffer xs, DoubleBuffer out) {
+        int length = xs.remaining();
+        if (out.remaining() < length) {
+            throw new IllegalArgumentException("Output buffer has room for " + out.remaining()
+                    + " values but " + length + " are needed");
+        }
+
+        if (xs.hasArray() && out.hasArray() && !out.isReadOnly()) {
+            evaluate(xs.array(), xs.arrayOffset() + xs.position(), out.array(), out.arrayOffset() + out.position(), length);
+            xs.position(xs.position() + length);
+            out.position(out.position() + length);
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                out.put(evaluate(xs.get()));
+            }
+        }
+    }
+
+    public String toString() {
+        DecimalFormat dF = new DecimalFormat("#.####");
+        String pString = new String();
+
+        for (int i= coefficients.length - 1; i > 0; i--) {
+            pString += dF.format(coefficients[i]) + "x^" + i + " + ";
+        }
+        pString += dF.format(coefficients[0]) + "";
+        return pString;
+    }
+}
@@ -0,0 +1,207 @@
+package bestfit;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/*Incrementally computes a least-squares best fit polynomial. Points are added one at a time or in chunks
+  and only the sums making up the normal equations are kept, so memory does not grow with the number of
+  points and a fit can be taken at any time without revisiting earlier data */
+public class PolynomialFitter {
+
+    private int numCoeff; //Degree of the polynomial plus one
+    private double[] powerSums; //Sums of x^k for 0 <= k <= 2*degree, which make up the normal matrix (see PowerSums)
+    private double[] rhsSums; //Sums of y*x^k for 0 <= k <= degree
+    private long count;
+    private boolean parallel;
+
+    //Chunks of at most this many points are summed sequentially; larger ranges are split in parallel mode
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    //Points read by each task when a Dataset is summed in parallel
+    private static final long DATASET_TASK_POINTS = 1L << 20;
+
+    public PolynomialFitter(int degree) {
+        numCoeff = degree + 1;
+        powerSums = new double[2*degree + 1];
+        rhsSums = new double[numCoeff];
+    }
+
+    //Fits a polynomial of the given degree to (x[i], y[i]) in a single pass over the data
+    public static Polynomial fit(double[] x, double[] y, int degree) {
+        PolynomialFitter fitter = new PolynomialFitter(degree);
+        fitter.addAll(x, y);
+        return fitter.getPolynomial();
+    }
+
+    public int getDegree() {
+        return numCoeff - 1;
+    }
+
+    /*In parallel mode addAll() splits large ranges across the common fork-join pool. Ranges are always split
+      at the same points and partial sums combined in the same order, so the result does not depend on the
+      number of threads */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    //Number of points added since construction or the last reset
+    public long getCount() {
+        return count;
+    }
+
+    public void add(double x, double y) {
+        add(x, y, 1);
+    }
+
+    /*Adds a point with the given weight, for weighted least squares: the fit minimizes the sum of
+      weight*(y - p(x))^2. Adding a point with weight w counts like adding it w times; getCount() still
+      counts it once */
+    public void add(double x, double y, double weight) {
+        PowerSums.accumulate(powerSums, rhsSums, x, y, weight);
+        count++;
+    }
+
+    public void addAll(double[] x, double[] y) {
+        addAll(x, y, 0, x.length);
+    }
+
+    //Adds each point (x[i], y[i]) with weight w[i]
+    public void addAll(double[] x, double[] y, double[] w) {
+        if (x.length != y.length || x.length != w.length) {
+            throw new IllegalArgumentException("Need the same number of x values, y values and weights");
+        }
+        for (int i = 0; i < x.length; i++) {
+            add(x[i], y[i], w[i]);
+        }
+    }
+
+    //Adds the points (x[i], y[i]) for from <= i < to
+    public void addAll(double[] x, double[] y, int from, int to) {
+        if (parallel && to - from > PARALLEL_THRESHOLD) {
+            merge(ForkJoinPool.commonPool().invoke(new SumTask(getDegree(), x, y, from, to)));
+        }
+        else {
+            for (int i = from; i < to; i++) {
+                add(x[i], y[i]);
+            }
+        }
+    }
+
+    /*Adds every point of 'data', reading it a chunk at a time so the points are never all on the heap. In
+      parallel mode each fixed range of DATASET_TASK_POINTS points is summed by its own task and the partial
+      sums are merged in order */
+    public void addAll(Dataset data) {
+        long size = data.size();
+        if (parallel && size > PARALLEL_THRESHOLD) {
+            int degree = getDegree();
+            int tasks = (int) ((size + DATASET_TASK_POINTS - 1)/DATASET_TASK_POINTS);
+            PolynomialFitter[] partial = IntStream.range(0, tasks).parallel().mapToObj(task -> {
+                PolynomialFitter fitter = new PolynomialFitter(degree);
+                long from = task*DATASET_TASK_POINTS;
+                data.forEachChunk(from, Math.min(from + DATASET_TASK_POINTS, size), (x, y, count) -> fitter.addAll(x, y, 0, count));
+                return fitter;
+            }).toArray(PolynomialFitter[]::new);
+            for (PolynomialFitter fitter : partial) {
+                merge(fitter);
+            }
+        }
+        else {
+            data.forEachChunk((x, y, count) -> addAll(x, y, 0, count));
+        }
+    }
+
+    //Adds the points accumulated by another fitter of the same degree, as if they had been added to this one
+    public void merge(PolynomialFitter other) {
+        if (other.numCoeff != numCoeff) {
+            throw new IllegalArgumentException("Cannot merge a degree " + other.getDegree()
+                    + " fitter into a degree " + getDegree() + " fitter");
+        }
+        for (int k = 0; k < powerSums.length; k++) {
+            powerSums[k] += other.powerSums[k];
+        }
+        for (int k = 0; k < numCoeff; k++) {
+            rhsSums[k] += other.rhsSums[k];
+        }
+        count += other.count;
+    }
+
+    public void reset() {
+        Arrays.fill(powerSums, 0);
+        Arrays.fill(rhsSums, 0);
+        count = 0;
+    }
+
+    //Solves the normal equations for the points added so far, returning the coefficients as a column matrix
+    public Matrix solve() {
+        return solve(getDegree());
+    }
+
+    /*Solves for a polynomial of a lower degree than this fitter's. The sums for any degree up to getDegree()
+      are a subset of the ones kept, so fits of several degrees can share one pass over the data */
+    public Matrix solve(int degree) {
+        if (degree < 0 || degree > getDegree()) {
+            throw new IllegalArgumentException("Degree must be between 0 and " + getDegree());
+        }
+        Matrix normal = PowerSums.normalMatrix(powerSums, degree + 1);
+        return normal.solvePositiveDefinite(new Matrix(Arrays.copyOf(rhsSums, degree + 1)));
+    }
+
+    /*Estimated condition number of the normal matrix for the points added so far, or infinity if it is not
+      numerically positive definite. Above Matrix.MAX_NORMAL_EQUATIONS_CONDITION the fit from solve() may have
+      lost too much precision, and QRSolver should be used on the data instead */
+    public double conditionEstimate() {
+        try {
+            return new CholeskyFactorization(PowerSums.normalMatrix(powerSums, numCoeff)).conditionEstimate();
+        }
+        catch (ArithmeticException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    public Polynomial getPolynomial() {
+        return new Polynomial(solve());
+    }
+
+    public Polynomial getPolynomial(int degree) {
+        return new Polynomial(solve(degree));
+    }
+
+    //Sums a range of points into a new fitter, halving the range until it is small enough to sum directly
+    private static class SumTask extends RecursiveTask<PolynomialFitter> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int degree;
+        private double[] x, y;
+        private int from, to;
+
+        SumTask(int degree, double[] x, double[] y, int from, int to) {
+            this.degree = degree;
+            this.x = x;
+            this.y = y;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected PolynomialFitter compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                PolynomialFitter partial = new PolynomialFitter(degree);
+                partial.addAll(x, y, from, to);
+                return partial;
+            }
+
+            int mid = (from + to) >>> 1;
+            SumTask right = new SumTask(degree, x, y, mid, to);
+            right.fork();
+            PolynomialFitter left = new SumTask(degree, x, y, from, mid).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package bestfit;
+
+/*The sums behind the normal equations of a polynomial fit, shared by the fitters that build them. For a
+  polynomial basis the normal matrix is a Hankel matrix: entry (i, j) is the sum of x^(i+j), so only the
+  2*degree + 1 power sums need to be kept rather than the full matrix. The right-hand side is the sums of
+  y*x^k for 0 <= k <= degree */
+final class PowerSums {
+
+    private PowerSums() {
+    }
+
+    /*Adds weight*x^k to powerSums[k] for every k, and weight*y*x^k to rhsSums[k] for k < rhsSums.length.
+      The powers are a running product rather than a Math.pow call each. A negative weight removes a point */
+    static void accumulate(double[] powerSums, double[] rhsSums, double x, double y, double weight) {
+        double xPow = weight;
+        for (int k = 0; k < rhsSums.length; k++) {
+            powerSums[k] += xPow;
+            rhsSums[k] += xPow*y;
+            xPow *= x;
+        }
+        for (int k = rhsSums.length; k < powerSums.length; k++) {
+            powerSums[k] += xPow;
+            xPow *= x;
+        }
+    }
+
+    //Adds x^k to powerSums[k] for every k, when the right-hand side is summed separately
+    static void accumulate(double[] powerSums, double x) {
+        double xPow = 1;
+        for (int k = 0; k < powerSums.length; k++) {
+            powerSums[k] += xPow;
+            xPow *= x;
+        }
+    }
+
+    //Writes the size x size normal matrix into 'out', row-major
+    static void normalMatrix(double[] powerSums, int size, double[] out) {
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(powerSums, i, out, i*size, size);
+        }
+    }
+
+    //Returns the size x size normal matrix
+    static Matrix normalMatrix(double[] powerSums, int size) {
+        Matrix normal = new Matrix(size, size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                normal.setEntry(i, j, powerSums[i + j]);
+            }
+        }
+        return normal;
+    }
+}
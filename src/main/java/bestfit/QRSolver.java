@@ -0,0 +1,206 @@
+package bestfit;
+
+/*Least-squares solver based on Householder QR factorization. Unlike the normal equations, QR works with the
+  design matrix itself, so it does not square the condition number and stays accurate for high-degree
+  polynomial fits.
+
+  Rows are taken a block at a time: each block is stacked under the current triangular factor R and the
+  stack is reduced back to triangular form with Householder reflections. Only R, Q-transpose * b and one
+  block of rows are ever held, so the reflections run on data that sits in cache, the design matrix is read
+  once and never copied as a whole, and rows can be generated on the fly instead of stored */
+public class QRSolver {
+
+    private int numCol; //Columns of the design matrix
+    private int numRhs; //Columns of the right-hand side
+    private int width; //numCol + numRhs: each working row holds a design row followed by its right-hand side
+
+    /*Rows 0 ... numCol - 1 hold [R | Q-transpose * b]; the following rows buffer up to BLOCK_ROWS new rows.
+      Stored row-major with 'width' entries per row */
+    private double[] work;
+    private int pending; //Rows buffered and not yet reduced
+    private double[] w; //Scratch for applying a reflection
+    private double[] residualSums; //Sum of squared residuals for each right-hand-side column
+    private long count;
+
+    //Number of rows reduced together; small enough that a block and R stay in cache
+    private static final int BLOCK_ROWS = 128;
+
+    public QRSolver(int numCol, int numRhs) {
+        this.numCol = numCol;
+        this.numRhs = numRhs;
+        width = numCol + numRhs;
+        work = new double[(numCol + BLOCK_ROWS)*width];
+        w = new double[width];
+        residualSums = new double[numRhs];
+    }
+
+    //Fits a polynomial of the given degree to (x[i], y[i]) without building the Vandermonde matrix
+    public static Polynomial fitPolynomial(double[] x, double[] y, int degree) {
+        return new Polynomial(solvePolynomial(x, y, degree));
+    }
+
+    //Returns the coefficients of the polynomial fit as a column matrix, generating each Vandermonde row as needed
+    public static Matrix solvePolynomial(double[] x, double[] y, int degree) {
+        return solvePolynomial(new ArrayDataset(x, y), degree);
+    }
+
+    //As above, reading the points a chunk at a time
+    public static Matrix solvePolynomial(Dataset data, int degree) {
+        QRSolver solver = new QRSolver(degree + 1, 1);
+        data.forEachChunk(solver::addPolynomialRows);
+        return solver.solve();
+    }
+
+    /*Adds the row [1, x[i], x[i]^2, ..., x[i]^(numCol - 1) | y[i]] for each of the 'count' points, for a
+      polynomial fit with one right-hand side. Fits a DataLoader.PointConsumer, so points can be streamed
+      straight from a file */
+    public void addPolynomialRows(double[] x, double[] y, int count) {
+        if (numRhs != 1) {
+            throw new IllegalStateException("Polynomial rows have one right-hand side, not " + numRhs);
+        }
+        for (int i = 0; i < count; i++) {
+            int row = (numCol + pending)*width;
+            double xPow = 1;
+            for (int k = 0; k < numCol; k++) {
+                work[row + k] = xPow;
+                xPow *= x[i];
+            }
+            work[row + numCol] = y[i];
+            pending++;
+            this.count++;
+            if (pending == BLOCK_ROWS) {
+                reduce();
+            }
+        }
+    }
+
+    //Number of rows added so far
+    public long getCount() {
+        return count;
+    }
+
+    //Adds one row: the first numCol entries are the design row, the next numRhs its right-hand side
+    public void addRow(double[] row) {
+        System.arraycopy(row, 0, work, (numCol + pending)*width, width);
+        pending++;
+        count++;
+        if (pending == BLOCK_ROWS) {
+            reduce();
+        }
+    }
+
+    //Adds every row of the design matrix 'a' along with the matching rows of 'b'
+    public void addRows(Matrix a, Matrix b) {
+        if (a.getNumCol() != numCol || b.getNumCol() != numRhs || a.getNumRow() != b.getNumRow()) {
+            throw new IllegalArgumentException("Expected " + numCol + " design columns and " + numRhs
+                    + " right-hand-side columns with matching row counts");
+        }
+        for (int i = 0; i < a.getNumRow(); i++) {
+            int row = (numCol + pending)*width;
+            for (int j = 0; j < numCol; j++) {
+                work[row + j] = a.getEntry(i, j);
+            }
+            for (int j = 0; j < numRhs; j++) {
+                work[row + numCol + j] = b.getEntry(i, j);
+            }
+            pending++;
+            count++;
+            if (pending == BLOCK_ROWS) {
+                reduce();
+            }
+        }
+    }
+
+    //Returns the numCol x numRhs least-squares solution for the rows added so far
+    public Matrix solve() {
+        reduce();
+        Matrix x = new Matrix(numCol, numRhs);
+        for (int c = 0; c < numRhs; c++) {
+            for (int i = numCol - 1; i >= 0; i--) {
+                double sum = work[i*width + numCol + c];
+                for (int k = i + 1; k < numCol; k++) {
+                    sum -= work[i*width + k]*x.getEntry(k, c);
+                }
+                x.setEntry(i, c, sum/work[i*width + i]);
+            }
+        }
+        return x;
+    }
+
+    //Returns the upper-triangular factor R of the rows added so far
+    public Matrix getR() {
+        reduce();
+        Matrix r = new Matrix(numCol, numCol);
+        for (int i = 0; i < numCol; i++) {
+            for (int j = i; j < numCol; j++) {
+                r.setEntry(i, j, work[i*width + j]);
+            }
+        }
+        return r;
+    }
+
+    //Sum of squared residuals of the least-squares solution for the given right-hand-side column
+    public double getResidualSumOfSquares(int rhsColumn) {
+        reduce();
+        return residualSums[rhsColumn];
+    }
+
+    //Reduces the buffered rows into R with one Householder reflection per column
+    private void reduce() {
+        int first = numCol; //Index of the first buffered row
+        int last = numCol + pending;
+
+        for (int j = 0; j < numCol; j++) {
+            /*R is upper triangular, so column j is zero in rows j+1 ... numCol-1 and the reflection only
+              involves row j and the buffered rows */
+            double rjj = work[j*width + j];
+            double below = 0;
+            for (int i = first; i < last; i++) {
+                below += work[i*width + j]*work[i*width + j];
+            }
+            if (below == 0) {
+                continue;
+            }
+
+            double norm = Math.sqrt(rjj*rjj + below);
+            double alpha = rjj > 0 ? -norm : norm; //New diagonal entry, signed to avoid cancellation
+            double vTop = rjj - alpha;
+            double tau = 2/(vTop*vTop + below);
+
+            //w = v-transpose * (trailing columns), accumulated row by row so each row is read contiguously
+            for (int c = j + 1; c < width; c++) {
+                w[c] = vTop*work[j*width + c];
+            }
+            for (int i = first; i < last; i++) {
+                double vi = work[i*width + j];
+                int row = i*width;
+                for (int c = j + 1; c < width; c++) {
+                    w[c] += vi*work[row + c];
+                }
+            }
+
+            //Trailing columns -= tau * v * w
+            for (int c = j + 1; c < width; c++) {
+                work[j*width + c] -= tau*vTop*w[c];
+            }
+            for (int i = first; i < last; i++) {
+                int row = i*width;
+                double vi = tau*work[row + j];
+                for (int c = j + 1; c < width; c++) {
+                    work[row + c] -= vi*w[c];
+                }
+                work[row + j] = 0;
+            }
+            work[j*width + j] = alpha;
+        }
+
+        //What remains of the right-hand sides in the buffered rows is orthogonal to the column space
+        for (int i = first; i < last; i++) {
+            for (int c = 0; c < numRhs; c++) {
+                double r = work[i*width + numCol + c];
+                residualSums[c] += r*r;
+            }
+        }
+        pending = 0;
+    }
+}
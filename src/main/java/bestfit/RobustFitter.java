@@ -0,0 +1,283 @@
+package bestfit;
+
+import java.util.Arrays;
+
+/*Fits polynomials that are not pulled off course by outliers, by iteratively reweighted least squares
+  (IRLS). Each iteration scales the residuals of the current fit by a robust estimate of their spread (the
+  median absolute residual), gives each point a weight that shrinks as its scaled residual grows, and solves
+  the weighted normal equations again.
+
+    HUBER: weight 1 for |u| <= c, then c/|u|. Convex, so it always converges; large outliers keep some pull
+    TUKEY: weight (1 - (u/c)^2)^2 for |u| < c, 0 beyond. Ignores gross outliers completely; not convex, so
+           its iterations start from the Huber fit
+
+  All working storage is allocated up front and grown only when a larger data set arrives, so a fitter
+  reused across data sets of similar size allocates nothing while fitting: each iteration is one pass over
+  the points to build the weighted sums, an O(degree^3) in-place Cholesky solve and one pass for the
+  residuals */
+public class RobustFitter {
+
+    public enum Loss { HUBER, TUKEY }
+
+    //Tuning constants giving 95% efficiency on normally distributed errors
+    public static final double HUBER_DEFAULT = 1.345;
+    public static final double TUKEY_DEFAULT = 4.685;
+
+    //Converts the median absolute residual into an estimate of the standard deviation for normal errors
+    private static final double MAD_TO_SIGMA = 1/0.6744897501960817;
+
+    private int numCoeff; //Degree of the polynomial plus one
+    private Loss loss;
+    private double tuning;
+    private int maxIterations = 50;
+    private double tolerance = 1e-8;
+
+    //Workspace for the weighted normal equations
+    private double[] powerSums; //Weighted sums of x^k for 0 <= k <= 2*degree
+    private double[] factor; //Normal matrix, overwritten by its Cholesky factor
+    private double[] coefficients; //Current fit, overwritten by each solve
+    private double[] previous; //Fit from the previous iteration
+
+    //Workspace with one entry per point
+    private double[] weights = new double[0];
+    private double[] residuals = new double[0];
+    private double[] scratch = new double[0]; //Absolute residuals, reordered when finding their median
+
+    private int lastSize; //Number of points in the last fit
+    private int iterations;
+    private double scale;
+
+    public RobustFitter(int degree, Loss loss) {
+        numCoeff = degree + 1;
+        this.loss = loss;
+        tuning = loss == Loss.HUBER ? HUBER_DEFAULT : TUKEY_DEFAULT;
+        powerSums = new double[2*degree + 1];
+        factor = new double[numCoeff*numCoeff];
+        coefficients = new double[numCoeff];
+        previous = new double[numCoeff];
+    }
+
+    public int getDegree() {
+        return numCoeff - 1;
+    }
+
+    //Larger values treat fewer points as outliers
+    public void setTuningConstant(double tuning) {
+        if (!(tuning > 0)) {
+            throw new IllegalArgumentException("Tuning constant must be positive");
+        }
+        this.tuning = tuning;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    //Iterations stop once no coefficient changes by more than this, relative to the largest coefficient
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    //Number of reweighted solves made by the last fit
+    public int getIterations() {
+        return iterations;
+    }
+
+    //Robust estimate of the standard deviation of the residuals, from the last fit
+    public double getScale() {
+        return scale;
+    }
+
+    //Final weight of each point in the last fit, between 0 (ignored as an outlier) and 1
+    public double[] getWeights() {
+        return Arrays.copyOf(weights, lastSize);
+    }
+
+    public Polynomial fit(double[] x, double[] y) {
+        double[] result = new double[numCoeff];
+        fit(x, y, result);
+        return new Polynomial(result);
+    }
+
+    //Robustly fits (x[i], y[i]), writing the degree + 1 coefficients into 'result' without allocating
+    public void fit(double[] x, double[] y, double[] result) {
+        int n = prepare(x, y);
+        Arrays.fill(weights, 0, n, 1);
+        solveWeighted(x, y, n);
+        iterations = 1;
+
+        if (loss == Loss.TUKEY) {
+            reweight(x, y, n, Loss.HUBER, HUBER_DEFAULT);
+        }
+        reweight(x, y, n, loss, tuning);
+        System.arraycopy(coefficients, 0, result, 0, numCoeff);
+    }
+
+    /*Weighted least squares: minimizes the sum of w[i]*(y[i] - p(x[i]))^2. Throws IllegalArgumentException
+      if any weight is negative, infinite or NaN */
+    public Polynomial fitWeighted(double[] x, double[] y, double[] w) {
+        int n = prepare(x, y);
+        if (w.length != n) {
+            throw new IllegalArgumentException("Need one weight per point");
+        }
+        for (int i = 0; i < n; i++) {
+            if (!(w[i] >= 0) || w[i] == Double.POSITIVE_INFINITY) {
+                throw new IllegalArgumentException("Weight " + i + " is " + w[i]
+                        + "; weights must be finite and non-negative");
+            }
+        }
+        System.arraycopy(w, 0, weights, 0, n);
+        solveWeighted(x, y, n);
+        iterations = 1;
+        scale = madScale(n);
+        return new Polynomial(coefficients);
+    }
+
+    //Checks the data and grows the per-point workspace if needed, returning the number of points
+    private int prepare(double[] x, double[] y) {
+        int n = x.length;
+        if (y.length != n) {
+            throw new IllegalArgumentException("Need the same number of x and y values");
+        }
+        if (n < numCoeff) {
+            throw new IllegalArgumentException(n + " points are not enough to fit a degree " + getDegree() + " polynomial");
+        }
+        if (weights.length < n) {
+            weights = new double[n];
+            residuals = new double[n];
+            scratch = new double[n];
+        }
+        lastSize = n;
+        return n;
+    }
+
+    //Runs IRLS iterations with the given loss until the coefficients settle
+    private void reweight(double[] x, double[] y, int n, Loss loss, double c) {
+        for (int it = 0; it < maxIterations; it++) {
+            scale = madScale(n);
+            if (scale == 0) {
+                return; //At least half the points are fit exactly; reweighting cannot improve on that
+            }
+            for (int i = 0; i < n; i++) {
+                double u = Math.abs(residuals[i])/(scale*c);
+                if (loss == Loss.HUBER) {
+                    weights[i] = u <= 1 ? 1 : 1/u;
+                }
+                else {
+                    double v = 1 - u*u;
+                    weights[i] = u < 1 ? v*v : 0;
+                }
+            }
+
+            System.arraycopy(coefficients, 0, previous, 0, numCoeff);
+            solveWeighted(x, y, n);
+            iterations++;
+
+            double change = 0, size = 0;
+            for (int k = 0; k < numCoeff; k++) {
+                change = Math.max(change, Math.abs(coefficients[k] - previous[k]));
+                size = Math.max(size, Math.abs(coefficients[k]));
+            }
+            if (change <= tolerance*size) {
+                return;
+            }
+        }
+    }
+
+    /*Solves the weighted normal equations in place into 'coefficients', then updates 'residuals'. Throws
+      ArithmeticException if too few points have nonzero weight to determine the fit */
+    private void solveWeighted(double[] x, double[] y, int n) {
+        Arrays.fill(powerSums, 0);
+        Arrays.fill(coefficients, 0);
+        for (int i = 0; i < n; i++) {
+            double w = weights[i];
+            if (w == 0) {
+                continue;
+            }
+            PowerSums.accumulate(powerSums, coefficients, x[i], y[i], w);
+        }
+
+        PowerSums.normalMatrix(powerSums, numCoeff, factor);
+        if (!CholeskyFactorization.decompose(factor, numCoeff)) {
+            throw new ArithmeticException("Too few points with nonzero weight to fit a degree " + getDegree() + " polynomial");
+        }
+        CholeskyFactorization.solve(factor, numCoeff, coefficients);
+
+        for (int i = 0; i < n; i++) {
+            double fitted = 0;
+            for (int k = numCoeff - 1; k >= 0; k--) {
+                fitted = fitted*x[i] + coefficients[k];
+            }
+            residuals[i] = y[i] - fitted;
+        }
+    }
+
+    //Median absolute residual, scaled to estimate the standard deviation
+    private double madScale(int n) {
+        for (int i = 0; i < n; i++) {
+            scratch[i] = Math.abs(residuals[i]);
+        }
+        int half = n/2;
+        double median = select(scratch, n, half);
+        if (n%2 == 0) {
+            //select() left the smaller half below index 'half', so the other middle value is their maximum
+            double lower = scratch[0];
+            for (int i = 1; i < half; i++) {
+                lower = Math.max(lower, scratch[i]);
+            }
+            median = (median + lower)/2;
+        }
+        return median*MAD_TO_SIGMA;
+    }
+
+    /*Returns the k'th smallest of a[0] ... a[n-1] (counting from 0) by quickselect, partially reordering 'a'
+      in place so that a[i] <= a[k] for i < k and a[i] >= a[k] for i > k. Average O(n), no allocation */
+    static double select(double[] a, int n, int k) {
+        int lo = 0, hi = n - 1;
+        while (lo < hi) {
+            //Median of three as the pivot, which also guards both partition scans
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < a[lo]) {
+                swap(a, lo, mid);
+            }
+            if (a[hi] < a[lo]) {
+                swap(a, lo, hi);
+            }
+            if (a[hi] < a[mid]) {
+                swap(a, mid, hi);
+            }
+            double pivot = a[mid];
+
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (a[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(a, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            }
+            else if (k >= i) {
+                lo = i;
+            }
+            else {
+                return a[k];
+            }
+        }
+        return a[k];
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+}
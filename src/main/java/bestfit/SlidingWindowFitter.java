@@ -0,0 +1,299 @@
+package bestfit;
+
+import java.util.Arrays;
+
+/*Fits a polynomial to the most recent points of a series. When a point arrives and the window is full, the
+  oldest point is dropped. Rather than refitting the window, the Cholesky factor of the normal matrix is
+  updated for the new point and downdated for the old one, so each point costs O(degree^2) however wide the
+  window is.
+
+  The sums are kept in terms of u = (x - origin)/scale, with the origin and scale following the mean and
+  spread of the window's x values, so x values far from zero (such as timestamps) do not make the normal
+  matrix ill-conditioned. Adding and subtracting lets rounding error build up in the sums, so a fresh copy of
+  the sums is built alongside them, RESUM_POINTS_PER_ADD points per add(), in coordinates recentred on the
+  current window; once it covers the window it replaces them. Every add() does the same bounded work, and the
+  error in the sums only ever reflects the points added and dropped since the last replacement, at most about
+  one window's worth. If the normal matrix is still too ill-conditioned to trust, the fit falls back to QR
+  over the window.
+
+  That fallback costs O(window*degree^2) rather than O(degree^2), so it is a cliff in the cost of a fit. Its
+  result is kept until the next add(), so only the first getPolynomial(), getCurve() or evaluate() after each
+  add() pays for it. A degree high enough to need QR on every window, typically above 8 or so, makes each
+  add() followed by a fit cost O(window*degree^2) */
+public class SlidingWindowFitter {
+
+    //Points added to the fresh sums per add(); a full window's sums are replaced every window/this points
+    private static final int RESUM_POINTS_PER_ADD = 4;
+
+    private int numCoeff; //Degree of the polynomial plus one
+    private double[] xWindow, yWindow; //Ring buffers: point number s (counting from 0) is in slot s % window size
+    private long added; //Number of points added so far
+    private int size; //Number of points currently in the window
+
+    private double origin, scale = 1; //The sums and factor are in terms of u = (x - origin)/scale
+    private double[] powerSums; //Sums of u^k over the window for 0 <= k <= 2*degree
+    private double[] rhsSums; //Sums of y*u^k over the window for 0 <= k <= degree
+    private double[] factor; //Cholesky factor of the window's normal matrix, row-major
+    private boolean factored; //Whether 'factor' is currently valid
+    private double[] scratch; //Update vector and solution space
+    private double[] solution; //Coefficients in powers of u for the current window, or null until solved
+    private boolean undetermined; //Whether the current window was found not to determine the fit
+
+    //Fresh sums of points shadowStart ... shadowNext - 1, in terms of (x - shadowOrigin)/shadowScale
+    private double shadowOrigin, shadowScale;
+    private double[] shadowPowerSums, shadowRhsSums;
+    private long shadowStart = -1; //-1 until the first point is added
+    private long shadowNext;
+
+    public SlidingWindowFitter(int degree, int windowSize) {
+        if (windowSize < degree + 1) {
+            throw new IllegalArgumentException("A window of " + windowSize + " points cannot fit a degree "
+                    + degree + " polynomial");
+        }
+        numCoeff = degree + 1;
+        xWindow = new double[windowSize];
+        yWindow = new double[windowSize];
+        powerSums = new double[2*degree + 1];
+        rhsSums = new double[numCoeff];
+        shadowPowerSums = new double[2*degree + 1];
+        shadowRhsSums = new double[numCoeff];
+        factor = new double[numCoeff*numCoeff];
+        scratch = new double[numCoeff];
+    }
+
+    public int getDegree() {
+        return numCoeff - 1;
+    }
+
+    public int getWindowSize() {
+        return xWindow.length;
+    }
+
+    //Number of points currently in the window
+    public int getCount() {
+        return size;
+    }
+
+    //Adds a point to the window, dropping the oldest point if the window is already full
+    public void add(double x, double y) {
+        if (added == 0) {
+            origin = x;
+        }
+        int slot = (int) (added%xWindow.length);
+        boolean full = size == xWindow.length;
+        double oldX = xWindow[slot], oldY = yWindow[slot]; //The oldest point, if the window is full
+        if (!full) {
+            size++;
+        }
+        xWindow[slot] = x;
+        yWindow[slot] = y;
+        added++;
+        solution = null;
+        undetermined = false;
+
+        double u = (x - origin)/scale;
+        PowerSums.accumulate(powerSums, rhsSums, u, y, 1);
+        if (factored) {
+            CholeskyFactorization.update(factor, numCoeff, powers(u));
+        }
+        if (full) {
+            double oldU = (oldX - origin)/scale;
+            PowerSums.accumulate(powerSums, rhsSums, oldU, oldY, -1);
+            if (factored) {
+                factored = CholeskyFactorization.downdate(factor, numCoeff, powers(oldU));
+            }
+        }
+
+        advanceShadow();
+        if (!factored && size >= numCoeff) {
+            refactor();
+        }
+    }
+
+    /*Returns the best fit polynomial for the points currently in the window, in powers of x. When x is far
+      from zero compared with the window's spread, evaluating these coefficients cancels badly; getCurve() and
+      evaluate() keep the fit in the window's own coordinates and do not */
+    public Polynomial getPolynomial() {
+        //Expand p((x - origin)/scale) by Horner's rule on polynomials: r = r*(x - origin)/scale + c[k]
+        double[] c = solveShifted();
+        double[] r = new double[numCoeff];
+        for (int k = numCoeff - 1; k >= 0; k--) {
+            for (int j = numCoeff - 1; j > 0; j--) {
+                r[j] = (r[j - 1] - origin*r[j])/scale;
+            }
+            r[0] = -origin*r[0]/scale + c[k];
+        }
+        return new Polynomial(r);
+    }
+
+    //Returns the best fit for the points currently in the window, evaluated in the window's coordinates
+    public Curve getCurve() {
+        return new ShiftedPolynomial(new Polynomial(solveShifted()), origin, scale);
+    }
+
+    //Value at x of the best fit for the points currently in the window
+    public double evaluate(double x) {
+        return getCurve().evaluate(x);
+    }
+
+    //A polynomial in u = (x - origin)/scale
+    private static class ShiftedPolynomial implements Curve {
+
+        private Polynomial polynomial;
+        private double origin, scale;
+
+        ShiftedPolynomial(Polynomial polynomial, double origin, double scale) {
+            this.polynomial = polynomial;
+            this.origin = origin;
+            this.scale = scale;
+        }
+
+        public double evaluate(double x) {
+            return polynomial.evaluate((x - origin)/scale);
+        }
+
+        public void evaluate(double[] xs, double[] out) {
+            for (int i = 0; i < xs.length; i++) {
+                out[i] = evaluate(xs[i]);
+            }
+        }
+
+        public String toString() {
+            return polynomial.toString().replace("x", "u") + ", where u = (x - " + origin + ")/" + scale;
+        }
+    }
+
+    /*Coefficients of the fit in powers of u. Uses the factor when the normal matrix is well enough
+      conditioned, and QR over the window otherwise. Throws ArithmeticException if the window does not
+      determine the fit, e.g. if it has fewer than degree + 1 distinct x values. The result is kept until the
+      next add(); callers must not modify it */
+    private double[] solveShifted() {
+        if (solution == null && !undetermined) {
+            solution = solveWindow();
+            undetermined = solution == null;
+        }
+        if (undetermined) {
+            throw new ArithmeticException("The window does not determine a degree " + getDegree() + " polynomial");
+        }
+        return solution;
+    }
+
+    //Solves for the current window, returning null if the fit is not determined
+    private double[] solveWindow() {
+        double[] coefficients = new double[numCoeff];
+        if (factored && conditionEstimate() <= Matrix.MAX_NORMAL_EQUATIONS_CONDITION) {
+            System.arraycopy(rhsSums, 0, coefficients, 0, numCoeff);
+            CholeskyFactorization.solve(factor, numCoeff, coefficients);
+            return coefficients;
+        }
+
+        QRSolver solver = new QRSolver(numCoeff, 1);
+        double[] row = new double[numCoeff + 1];
+        for (long s = added - size; s < added; s++) {
+            int slot = (int) (s%xWindow.length);
+            double u = (xWindow[slot] - origin)/scale;
+            double uPow = 1;
+            for (int k = 0; k < numCoeff; k++) {
+                row[k] = uPow;
+                uPow *= u;
+            }
+            row[numCoeff] = yWindow[slot];
+            solver.addRow(row);
+        }
+        Matrix solution = solver.solve();
+        for (int k = 0; k < numCoeff; k++) {
+            coefficients[k] = solution.getEntry(k, 0);
+            if (!Double.isFinite(coefficients[k])) {
+                return null;
+            }
+        }
+        return coefficients;
+    }
+
+    //Condition estimate of the window's normal matrix, from its factor
+    private double conditionEstimate() {
+        double norm = 0;
+        for (int j = 0; j < numCoeff; j++) {
+            double colSum = 0;
+            for (int i = 0; i < numCoeff; i++) {
+                colSum += Math.abs(powerSums[i + j]);
+            }
+            norm = Math.max(norm, colSum);
+        }
+        return CholeskyFactorization.conditionEstimate(factor, numCoeff, norm);
+    }
+
+    /*Adds up to RESUM_POINTS_PER_ADD more points to the fresh sums, and swaps them in once they cover exactly
+      the points in the window */
+    private void advanceShadow() {
+        long windowStart = added - size;
+
+        //Before the first point, or if the window filled up while the fresh sums were still catching up
+        if (shadowStart < windowStart) {
+            startShadow();
+        }
+
+        long end = Math.min(shadowNext + RESUM_POINTS_PER_ADD, added);
+        for (; shadowNext < end; shadowNext++) {
+            int slot = (int) (shadowNext%xWindow.length);
+            double u = (xWindow[slot] - shadowOrigin)/shadowScale;
+            PowerSums.accumulate(shadowPowerSums, shadowRhsSums, u, yWindow[slot], 1);
+        }
+
+        if (shadowNext == added && shadowStart == windowStart) {
+            double[] swap = powerSums;
+            powerSums = shadowPowerSums;
+            shadowPowerSums = swap;
+            swap = rhsSums;
+            rhsSums = shadowRhsSums;
+            shadowRhsSums = swap;
+            origin = shadowOrigin;
+            scale = shadowScale;
+            factored = false;
+            startShadow();
+        }
+    }
+
+    /*Starts a fresh set of sums, centred on the mean of the window's x values and scaled by their standard
+      deviation. In a full window, the points that will have been dropped by the time the sums catch up are
+      skipped, so the fresh sums never need a subtraction */
+    private void startShadow() {
+        shadowOrigin = origin;
+        shadowScale = scale;
+        if (powerSums.length >= 3 && powerSums[0] > 0) {
+            double mean = powerSums[1]/powerSums[0];
+            double variance = powerSums[2]/powerSums[0] - mean*mean;
+            shadowOrigin = origin + scale*mean;
+            if (variance > 0 && Double.isFinite(variance)) {
+                shadowScale = scale*Math.sqrt(variance);
+            }
+        }
+
+        long windowStart = added - size;
+        if (size == xWindow.length) {
+            shadowStart = windowStart + (xWindow.length + RESUM_POINTS_PER_ADD - 1)/RESUM_POINTS_PER_ADD;
+        }
+        else {
+            shadowStart = windowStart;
+        }
+        shadowNext = shadowStart;
+        Arrays.fill(shadowPowerSums, 0);
+        Arrays.fill(shadowRhsSums, 0);
+    }
+
+    //Fills 'scratch' with 1, u, u^2, ..., u^degree and returns it
+    private double[] powers(double u) {
+        double uPow = 1;
+        for (int k = 0; k < numCoeff; k++) {
+            scratch[k] = uPow;
+            uPow *= u;
+        }
+        return scratch;
+    }
+
+    //Factors the normal matrix from scratch, which costs O(degree^3)
+    private void refactor() {
+        PowerSums.normalMatrix(powerSums, numCoeff, factor);
+        factored = CholeskyFactorization.decompose(factor, numCoeff);
+    }
+}
@@ -0,0 +1,144 @@
+package bestfit;
+
+/*Fits a smoothing spline by penalized least squares on a cubic B-spline basis (a P-spline). The range
+  [min, max] is cut into equal segments, with one basis function more than there are segments plus two.
+  The fit minimizes
+      sum (y[i] - s(x[i]))^2 + lambda * sum (second differences of the basis coefficients)^2
+  so 'lambda' trades closeness to the data against smoothness: 0 gives plain least-squares splines, and as
+  it grows the fit approaches a straight line.
+
+  Each basis function is nonzero on only four segments, so the normal matrix is banded with bandwidth 3.
+  Adding a point costs O(1), solving costs O(segments) time and memory, and the result is a
+  PiecewisePolynomial with one cubic per segment */
+public class SplineFitter {
+
+    private double min, width; //Start and width of the first segment
+    private int segments;
+    private double lambda;
+
+    private BandedMatrix normal; //B-transpose * B
+    private double[] rhs; //B-transpose * y
+    private long count;
+    private double[] basis = new double[4]; //Scratch for the basis functions at one point
+
+    public SplineFitter(double min, double max, int segments, double lambda) {
+        if (!(max > min) || segments < 1 || !(lambda >= 0)) {
+            throw new IllegalArgumentException("Need min < max, at least one segment and a non-negative lambda");
+        }
+        this.min = min;
+        this.width = (max - min)/segments;
+        this.segments = segments;
+        this.lambda = lambda;
+        normal = new BandedMatrix(segments + 3, 3);
+        rhs = new double[segments + 3];
+    }
+
+    //Fits a spline over the range of the data
+    public static PiecewisePolynomial fit(double[] x, double[] y, int segments, double lambda) {
+        return fit(new ArrayDataset(x, y), segments, lambda);
+    }
+
+    //As above, in two passes over the data: one for its range and one to add the points
+    public static PiecewisePolynomial fit(Dataset data, int segments, double lambda) {
+        double[] range = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        data.forEachChunk((x, y, count) -> {
+            for (int i = 0; i < count; i++) {
+                range[0] = Math.min(range[0], x[i]);
+                range[1] = Math.max(range[1], x[i]);
+            }
+        });
+        double min = range[0], max = range[1];
+        if (!(max > min)) {
+            max = min + 1; //A single x value: any range containing it works, the penalty does the rest
+        }
+        SplineFitter fitter = new SplineFitter(min, max, segments, lambda);
+        data.forEachChunk((x, y, count) -> {
+            for (int i = 0; i < count; i++) {
+                fitter.add(x[i], y[i]);
+            }
+        });
+        return fitter.getCurve();
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /*Adds a point to the fit. Points outside [min, max] are fit by the first or last segment, which
+      extrapolates its cubic */
+    public void add(double x, double y) {
+        int s = segment(x);
+        computeBasis((x - min)/width - s);
+        for (int a = 0; a < 4; a++) {
+            rhs[s + a] += basis[a]*y;
+            for (int b = a; b < 4; b++) {
+                normal.addToEntry(s + a, s + b, basis[a]*basis[b]);
+            }
+        }
+        count++;
+    }
+
+    public void addAll(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Need the same number of x and y values");
+        }
+        for (int i = 0; i < x.length; i++) {
+            add(x[i], y[i]);
+        }
+    }
+
+    /*Solves for the spline through the points added so far. Throws ArithmeticException if the points do not
+      determine one, e.g. if lambda is 0 and some segment has too few points */
+    public PiecewisePolynomial getCurve() {
+        int n = segments + 3;
+
+        //Add lambda * D-transpose * D, where row i of the second-difference matrix D is [1 -2 1] at column i
+        BandedMatrix system = new BandedMatrix(normal);
+        double[] row = {1, -2, 1};
+        for (int i = 0; i < n - 2; i++) {
+            for (int a = 0; a < 3; a++) {
+                for (int b = a; b < 3; b++) {
+                    system.addToEntry(i + a, i + b, lambda*row[a]*row[b]);
+                }
+            }
+        }
+        double[] alpha = system.solve(rhs);
+
+        /*On segment s, with t = (x - start)/width, the spline is the sum of alpha[s + a] times the four
+          cubic B-spline pieces; collect its coefficients in powers of t, then rescale to powers of x - start */
+        double[] breakpoints = new double[segments + 1];
+        double[] coefficients = new double[4*segments];
+        for (int s = 0; s < segments; s++) {
+            double a0 = alpha[s], a1 = alpha[s + 1], a2 = alpha[s + 2], a3 = alpha[s + 3];
+            coefficients[4*s] = (a0 + 4*a1 + a2)/6;
+            coefficients[4*s + 1] = (a2 - a0)/2/width;
+            coefficients[4*s + 2] = (a0 - 2*a1 + a2)/2/(width*width);
+            coefficients[4*s + 3] = (a3 - a0 + 3*(a1 - a2))/6/(width*width*width);
+            breakpoints[s] = min + s*width;
+        }
+        breakpoints[segments] = min + segments*width;
+        return new PiecewisePolynomial(breakpoints, coefficients, 3);
+    }
+
+    private int segment(double x) {
+        double position = (x - min)/width;
+        if (!(position >= 0)) {
+            return 0;
+        }
+        return (int) Math.min(position, segments - 1);
+    }
+
+    //The four cubic B-splines that are nonzero on a segment, at local position t (0 <= t <= 1 inside it)
+    private void computeBasis(double t) {
+        double u = 1 - t;
+        double t2 = t*t, t3 = t2*t;
+        basis[0] = u*u*u/6;
+        basis[1] = (3*t3 - 6*t2 + 4)/6;
+        basis[2] = (-3*t3 + 3*t2 + 3*t + 1)/6;
+        basis[3] = t3/6;
+    }
+}
@@ -0,0 +1,89 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BandedMatrixTest {
+
+    //A random symmetric, diagonally dominant band matrix, along with the same matrix stored densely
+    private static BandedMatrix randomBanded(Random random, int size, int bandwidth, Matrix dense) {
+        BandedMatrix banded = new BandedMatrix(size, bandwidth);
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j <= Math.min(i + bandwidth, size - 1); j++) {
+                double value = random.nextGaussian();
+                banded.setEntry(i, j, value);
+                dense.setEntry(i, j, value);
+                dense.setEntry(j, i, value);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            double value = 2*bandwidth + 1 + random.nextDouble();
+            banded.setEntry(i, i, value);
+            dense.setEntry(i, i, value);
+        }
+        return banded;
+    }
+
+    @Test
+    void matchesDenseSolve() {
+        Random random = new Random(7);
+        for (int bandwidth : new int[] {0, 1, 3, 7}) {
+            for (int size : new int[] {1, 2, 5, 40}) {
+                Matrix dense = new Matrix(size, size);
+                BandedMatrix banded = randomBanded(random, size, bandwidth, dense);
+                double[] b = new double[size];
+                for (int i = 0; i < size; i++) {
+                    b[i] = random.nextGaussian();
+                }
+                double[] x = banded.solve(b);
+                Matrix expected = dense.solvePositiveDefinite(new Matrix(b));
+                for (int i = 0; i < size; i++) {
+                    assertEquals(expected.getEntry(i, 0), x[i], 1e-12, "size " + size + ", bandwidth " + bandwidth);
+                }
+            }
+        }
+    }
+
+    @Test
+    void symmetricAccess() {
+        BandedMatrix m = new BandedMatrix(5, 2);
+        m.setEntry(3, 1, 4);
+        m.addToEntry(1, 3, 1.5);
+        assertEquals(5.5, m.getEntry(1, 3), 0);
+        assertEquals(5.5, m.getEntry(3, 1), 0);
+        assertEquals(0, m.getEntry(0, 4), 0); //Outside the band
+        BandedMatrix copy = new BandedMatrix(m);
+        m.setEntry(1, 3, 0);
+        assertEquals(5.5, copy.getEntry(1, 3), 0);
+    }
+
+    @Test
+    void solveLeavesMatrixUnchanged() {
+        Random random = new Random(8);
+        Matrix dense = new Matrix(10, 10);
+        BandedMatrix banded = randomBanded(random, 10, 3, dense);
+        double[] b = new double[10];
+        b[4] = 1;
+        banded.solve(b);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                assertEquals(dense.getEntry(i, j), banded.getEntry(i, j), 0);
+            }
+        }
+    }
+
+    @Test
+    void rejectsIndefiniteMatrix() {
+        BandedMatrix m = new BandedMatrix(3, 1);
+        m.setEntry(0, 0, 1);
+        m.setEntry(0, 1, 2);
+        m.setEntry(1, 1, 1);
+        m.setEntry(2, 2, 1);
+        assertThrows(ArithmeticException.class, () -> m.solve(new double[] {1, 1, 1}));
+        assertThrows(ArithmeticException.class, () -> new BandedMatrix(2, 1).solve(new double[2]));
+    }
+}
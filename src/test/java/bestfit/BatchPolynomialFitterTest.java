@@ -0,0 +1,62 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BatchPolynomialFitterTest {
+
+    //Each series is a different random cubic plus noise on the shared x values
+    @Test
+    void matchesSeparateFits() {
+        Random random = new Random(7);
+        int n = 400, numSeries = 37, degree = 3; //Not a whole number of SERIES_PER_TASK blocks
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble()*4 - 2;
+        }
+        double[][] ySeries = new double[numSeries][n];
+        Matrix yMatrix = new Matrix(n, numSeries);
+        for (int s = 0; s < numSeries; s++) {
+            double[] c = {random.nextGaussian(), random.nextGaussian(), random.nextGaussian(), random.nextGaussian()};
+            for (int i = 0; i < n; i++) {
+                ySeries[s][i] = c[0] + x[i]*(c[1] + x[i]*(c[2] + x[i]*c[3])) + random.nextGaussian()*0.1;
+                yMatrix.setEntry(i, s, ySeries[s][i]);
+            }
+        }
+
+        BatchPolynomialFitter fitter = new BatchPolynomialFitter(x, degree);
+        assertTrue(fitter.conditionEstimate() < 1e4);
+        for (boolean parallel : new boolean[] {false, true}) {
+            fitter.setParallel(parallel);
+            Polynomial[] fromArrays = fitter.fitAll(ySeries);
+            Polynomial[] fromMatrix = fitter.fitAll(yMatrix);
+            assertEquals(numSeries, fromArrays.length);
+            assertEquals(numSeries, fromMatrix.length);
+            for (int s = 0; s < numSeries; s++) {
+                Polynomial expected = QRSolver.fitPolynomial(x, ySeries[s], degree);
+                Polynomial single = fitter.fit(ySeries[s]);
+                for (int k = 0; k <= degree; k++) {
+                    String where = "Series " + s + ", x^" + k + (parallel ? ", parallel" : "");
+                    assertEquals(expected.coefficients[k], fromArrays[s].coefficients[k], 1e-10, where);
+                    assertEquals(expected.coefficients[k], fromMatrix[s].coefficients[k], 1e-10, where);
+                    assertEquals(fromArrays[s].coefficients[k], single.coefficients[k], 0, where);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsWrongLengths() {
+        BatchPolynomialFitter fitter = new BatchPolynomialFitter(new double[] {0, 1, 2, 3}, 1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> fitter.fitAll(new double[][] {{1, 2, 3, 4}, {1, 2, 3}}));
+        assertEquals("Expected 4 y values in series 1 but found 3", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> fitter.fit(new double[5]));
+        assertThrows(IllegalArgumentException.class, () -> fitter.fitAll(new Matrix(3, 2)));
+    }
+}
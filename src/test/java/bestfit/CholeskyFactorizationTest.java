@@ -0,0 +1,154 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class CholeskyFactorizationTest {
+
+    //A random symmetric positive-definite n x n matrix, row-major
+    private static double[] randomPositiveDefinite(Random random, int n) {
+        double[] b = new double[n*n];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = random.nextGaussian();
+        }
+        double[] a = new double[n*n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double sum = i == j ? n : 0;
+                for (int k = 0; k < n; k++) {
+                    sum += b[i*n + k]*b[j*n + k];
+                }
+                a[i*n + j] = sum;
+            }
+        }
+        return a;
+    }
+
+    private static double[] randomVector(Random random, int n) {
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) {
+            v[i] = random.nextGaussian();
+        }
+        return v;
+    }
+
+    //a + sign * v * v-transpose
+    private static double[] rankOne(double[] a, double[] v, double sign) {
+        int n = v.length;
+        double[] result = a.clone();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                result[i*n + j] += sign*v[i]*v[j];
+            }
+        }
+        return result;
+    }
+
+    private static double[] factor(double[] a, int n) {
+        double[] l = a.clone();
+        assertTrue(CholeskyFactorization.decompose(l, n));
+        return l;
+    }
+
+    private static void assertFactorsEqual(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-10*Math.max(1, Math.abs(expected[i])), "Entry " + i);
+        }
+    }
+
+    @Test
+    void updateMatchesRefactoring() {
+        Random random = new Random(11);
+        for (int n = 1; n <= 9; n++) {
+            double[] a = randomPositiveDefinite(random, n);
+            double[] v = randomVector(random, n);
+            double[] l = factor(a, n);
+            CholeskyFactorization.update(l, n, v.clone());
+            assertFactorsEqual(factor(rankOne(a, v, 1), n), l);
+        }
+    }
+
+    @Test
+    void downdateMatchesRefactoring() {
+        Random random = new Random(12);
+        for (int n = 1; n <= 9; n++) {
+            double[] v = randomVector(random, n);
+            double[] a = rankOne(randomPositiveDefinite(random, n), v, 1); //So a - v * v-transpose stays definite
+            double[] l = factor(a, n);
+            assertTrue(CholeskyFactorization.downdate(l, n, v.clone()));
+            assertFactorsEqual(factor(rankOne(a, v, -1), n), l);
+        }
+    }
+
+    //The pattern of a sliding window: many updates and downdates, checked against a fresh factor at the end
+    @Test
+    void longRunOfUpdatesAndDowndates() {
+        Random random = new Random(13);
+        int n = 4, window = 50;
+        double[][] vectors = new double[2000][];
+        double[] a = new double[n*n];
+        for (int s = 0; s < window; s++) {
+            vectors[s] = randomVector(random, n);
+            a = rankOne(a, vectors[s], 1);
+        }
+        double[] l = factor(a, n);
+        for (int s = window; s < vectors.length; s++) {
+            vectors[s] = randomVector(random, n);
+            CholeskyFactorization.update(l, n, vectors[s].clone());
+            assertTrue(CholeskyFactorization.downdate(l, n, vectors[s - window].clone()));
+        }
+        double[] expected = new double[n*n];
+        for (int s = vectors.length - window; s < vectors.length; s++) {
+            expected = rankOne(expected, vectors[s], 1);
+        }
+        assertFactorsEqual(factor(expected, n), l);
+    }
+
+    @Test
+    void downdateDetectsLossOfDefiniteness() {
+        Random random = new Random(14);
+        int n = 5;
+        double[] a = randomPositiveDefinite(random, n);
+        double[] v = randomVector(random, n);
+        for (int i = 0; i < n; i++) {
+            v[i] *= 100;
+        }
+        assertFalse(CholeskyFactorization.downdate(factor(a, n), n, v));
+    }
+
+    //Hager's method gives a lower bound on the 1-norm condition number that is close to it in practice
+    @Test
+    void conditionEstimateIsCloseToExact() {
+        Random random = new Random(15);
+        for (int n = 2; n <= 8; n++) {
+            double[] a = randomPositiveDefinite(random, n);
+            Matrix m = new Matrix(n, n);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    m.setEntry(i, j, a[i*n + j]);
+                }
+            }
+            double exact = oneNorm(m)*oneNorm(m.invert());
+            double estimate = new CholeskyFactorization(m).conditionEstimate();
+            assertTrue(estimate <= exact*(1 + 1e-9), estimate + " > " + exact);
+            assertTrue(estimate >= exact/3, estimate + " < " + exact + "/3");
+        }
+    }
+
+    private static double oneNorm(Matrix m) {
+        double norm = 0;
+        for (int j = 0; j < m.getNumCol(); j++) {
+            double sum = 0;
+            for (int i = 0; i < m.getNumRow(); i++) {
+                sum += Math.abs(m.getEntry(i, j));
+            }
+            norm = Math.max(norm, sum);
+        }
+        return norm;
+    }
+}
@@ -0,0 +1,271 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//The CSV parser must give exactly the double that Double.parseDouble gives, whichever path it takes
+class DataLoaderTest {
+
+    //Parses "text,0" and checks x is bit-for-bit what Double.parseDouble returns
+    private static void assertParsesLikeJdk(String text) throws IOException {
+        double[] parsed = parse(text + ",0\n");
+        double expected = Double.parseDouble(text);
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(parsed[0]),
+                () -> text + " parsed as " + parsed[0] + ", expected " + expected);
+    }
+
+    //Parses CSV text and returns x0, y0, x1, y1, ...
+    private static double[] parse(String csv) throws IOException {
+        List<Double> values = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(csv.getBytes(StandardCharsets.US_ASCII));
+        long count = DataLoader.parseCsv(buffer, (x, y, n) -> {
+            for (int i = 0; i < n; i++) {
+                values.add(x[i]);
+                values.add(y[i]);
+            }
+        });
+        assertEquals(values.size()/2, count);
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    @Test
+    void roundHalfEvenTies() throws IOException {
+        //2^53 + 1 and 2^53 + 3 lie exactly halfway between two doubles
+        assertParsesLikeJdk("9007199254740993");
+        assertParsesLikeJdk("9007199254740995");
+        assertParsesLikeJdk("9007199254740993.0000000001");
+        //1 + 2^-53 exactly, and just either side of it
+        assertParsesLikeJdk("1.00000000000000011102230246251565404236316680908203125");
+        assertParsesLikeJdk("1.00000000000000011102230246251565404236316680908203124");
+        assertParsesLikeJdk("1.00000000000000011102230246251565404236316680908203126");
+        assertParsesLikeJdk("1.0000000000000001110223024625156540");
+        assertParsesLikeJdk("0.1");
+        assertParsesLikeJdk("0.3");
+        assertParsesLikeJdk("2.5e-1");
+    }
+
+    @Test
+    void subnormals() throws IOException {
+        assertParsesLikeJdk("4.9e-324");
+        assertParsesLikeJdk("2.4703282292062327e-324"); //Just below half the smallest subnormal
+        assertParsesLikeJdk("2.4703282292062328e-324"); //Just above it
+        assertParsesLikeJdk("2.2250738585072011e-308"); //Largest subnormal
+        assertParsesLikeJdk("2.2250738585072012e-308"); //Smallest normal
+        assertParsesLikeJdk("2.2250738585072014e-308");
+        assertParsesLikeJdk("1e-320");
+        assertParsesLikeJdk("-1e-320");
+        assertParsesLikeJdk("123456789e-330");
+    }
+
+    @Test
+    void longMantissas() throws IOException {
+        assertParsesLikeJdk("1234567890123456789");
+        assertParsesLikeJdk("12345678901234567890");
+        assertParsesLikeJdk("18446744073709551615"); //2^64 - 1
+        assertParsesLikeJdk("18446744073709551616");
+        assertParsesLikeJdk("9999999999999999999");
+        assertParsesLikeJdk("0.1000000000000000055511151231257827021181583404541015625");
+        assertParsesLikeJdk("3.14159265358979323846264338327950288");
+        assertParsesLikeJdk("1234567890123456789012345678901234567890e-20");
+        assertParsesLikeJdk("0.000000000000000000000000000000123456789012345678901");
+        assertParsesLikeJdk("100000000000000000000000000000000000001");
+    }
+
+    @Test
+    void exponentOverflowAndUnderflow() throws IOException {
+        assertParsesLikeJdk("1.7976931348623157e308"); //Largest double
+        assertParsesLikeJdk("1.7976931348623158e308"); //Rounds down to it
+        assertParsesLikeJdk("1.7976931348623159e308"); //Rounds up to infinity
+        assertParsesLikeJdk("1e309");
+        assertParsesLikeJdk("-1e309");
+        assertParsesLikeJdk("1e-400");
+        assertParsesLikeJdk("-1e-400");
+        assertParsesLikeJdk("1e99999999999");
+        assertParsesLikeJdk("1e-99999999999");
+        assertParsesLikeJdk("0e99999999999");
+        assertParsesLikeJdk("0.0000001e316");
+        assertParsesLikeJdk("100000e-329");
+    }
+
+    @Test
+    void signsAndFormats() throws IOException {
+        for (String text : new String[] {"0", "-0", "+0", "0.0", "-0.0", ".5", "5.", "-.5", "+1.5", "1E3", "1e+3",
+                "1e-3", "007", "0.000", "1.5e0", "NaN", "-NaN", "Infinity", "+Infinity", "-Infinity", "22e-22", "1e22", "1e23",
+                "123456789012345e22", "1234567890123456e-22"}) {
+            assertParsesLikeJdk(text);
+        }
+    }
+
+    @Test
+    void randomDoublesRoundTrip() throws IOException {
+        Random random = new Random(20240229);
+        StringBuilder csv = new StringBuilder();
+        double[] expected = new double[20000];
+        for (int i = 0; i < expected.length; i++) {
+            double value;
+            do {
+                value = Double.longBitsToDouble(random.nextLong());
+            } while (!Double.isFinite(value));
+            expected[i] = value;
+            csv.append(value).append(',').append(i).append('\n');
+        }
+        double[] parsed = parse(csv.toString());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(parsed[2*i]),
+                    "Line " + (i + 1));
+        }
+    }
+
+    @Test
+    void randomDigitStrings() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextBoolean()) {
+                text.append('-');
+            }
+            int intDigits = 1 + random.nextInt(25);
+            for (int j = 0; j < intDigits; j++) {
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                text.append('.');
+                int fracDigits = random.nextInt(25);
+                for (int j = 0; j < fracDigits; j++) {
+                    text.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            if (random.nextBoolean()) {
+                text.append('e').append(random.nextInt(700) - 350);
+            }
+            assertParsesLikeJdk(text.toString());
+        }
+    }
+
+    @Test
+    void separatorsAndHeaders() throws IOException {
+        double[] parsed = parse("x,y\n1,2\n3;4\r\n5\t6\n  7   8  extra\n\n# comment\n9,10,11\n");
+        assertEquals(10, parsed.length);
+        for (int i = 0; i < parsed.length; i++) {
+            assertEquals(i + 1, parsed[i]);
+        }
+    }
+
+    //NaN and Infinity are values in either column, while other words are headers or comments
+    @Test
+    void nonFiniteValues() throws IOException {
+        double[] parsed = parse("Index,Value\nInfinity,2\nNaN,3\n4,NaN\n-Infinity,Infinity\nNaNa,6\nInfinite,7\n");
+        double[] expected = {Double.POSITIVE_INFINITY, 2, Double.NaN, 3, 4, Double.NaN,
+            Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        assertEquals(expected.length, parsed.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], parsed[i]);
+        }
+        IOException e = assertThrows(IOException.class, () -> parse("1,2\nNaN\n"));
+        assertTrue(e.getMessage().contains("Line 2"), e.getMessage());
+    }
+
+    @Test
+    void missingYValue() {
+        IOException e = assertThrows(IOException.class, () -> parse("1,2\n3\n4,5\n"));
+        assertTrue(e.getMessage().contains("Line 2"), e.getMessage());
+        assertThrows(IOException.class, () -> parse("1,2\n3,"));
+    }
+
+    @Test
+    void notANumber() {
+        IOException e = assertThrows(IOException.class, () -> parse("1,2\n3,4x\n"));
+        assertTrue(e.getMessage().startsWith("Not a number"), e.getMessage());
+    }
+
+    @Test
+    void chunksLargeFiles(@TempDir Path dir) throws IOException {
+        int n = DataLoader.CHUNK_SIZE*2 + 17;
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            csv.append(i).append(',').append(-i).append('\n');
+        }
+        Path file = dir.resolve("points.csv");
+        Files.writeString(file, csv);
+        long[] sums = new long[2];
+        long count = DataLoader.load(file, (x, y, k) -> {
+            assertTrue(k <= DataLoader.CHUNK_SIZE);
+            for (int i = 0; i < k; i++) {
+                sums[0] += (long) x[i];
+                sums[1] += (long) y[i];
+            }
+        });
+        assertEquals(n, count);
+        assertEquals((long) n*(n - 1)/2, sums[0]);
+        assertEquals(-(long) n*(n - 1)/2, sums[1]);
+    }
+
+    //Mapping a few bytes at a time splits the file into many regions; line numbers must count across them
+    @Test
+    void linesAcrossMappedRegions(@TempDir Path dir) throws IOException {
+        StringBuilder csv = new StringBuilder("x,y\n");
+        for (int i = 1; i < 200; i++) {
+            csv.append(i).append(',').append(2*i).append('\n');
+        }
+        Path file = dir.resolve("points.csv");
+        Files.writeString(file, csv);
+        long[] sums = new long[2];
+        long count = DataLoader.loadCsv(file, (x, y, k) -> {
+            for (int i = 0; i < k; i++) {
+                sums[0] += (long) x[i];
+                sums[1] += (long) y[i];
+            }
+        }, 64);
+        assertEquals(199, count);
+        assertEquals(199*200/2, sums[0]);
+        assertEquals(199*200, sums[1]);
+
+        csv.append("200\n");
+        Files.writeString(file, csv);
+        IOException e = assertThrows(IOException.class, () -> DataLoader.loadCsv(file, (x, y, k) -> { }, 64));
+        assertTrue(e.getMessage().startsWith("Line 201 "), e.getMessage());
+    }
+
+    @Test
+    void loadsBinary(@TempDir Path dir) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(3*16).order(ByteOrder.LITTLE_ENDIAN);
+        double[] values = {1.5, -2, 4.9e-324, Double.MAX_VALUE, 0.1, -0.0};
+        for (double value : values) {
+            buffer.putDouble(value);
+        }
+        Path file = dir.resolve("points.bin");
+        Files.write(file, buffer.array());
+        List<Double> read = new ArrayList<>();
+        long count = DataLoader.loadBinary(file, (x, y, k) -> {
+            for (int i = 0; i < k; i++) {
+                read.add(x[i]);
+                read.add(y[i]);
+            }
+        });
+        assertEquals(3, count);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(read.get(i)));
+        }
+
+        Files.write(file, new byte[24]);
+        assertThrows(IOException.class, () -> DataLoader.loadBinary(file, (x, y, k) -> { }));
+    }
+}
@@ -0,0 +1,103 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DegreeSelectorTest {
+
+    //Points on 1 - 2x + 0.5x^2 + 0.3x^3 with Gaussian noise of the given size, x uniform on [-3, 3]
+    private static double[][] cubic(Random random, int n, double noise) {
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble()*6 - 3;
+            y[i] = 1 - 2*x[i] + 0.5*x[i]*x[i] + 0.3*x[i]*x[i]*x[i] + random.nextGaussian()*noise;
+        }
+        return new double[][] {x, y};
+    }
+
+    @Test
+    void selectsTrueDegree() {
+        double[][] points = cubic(new Random(13), 500, 0.2);
+        for (DegreeSelector.Criterion criterion : DegreeSelector.Criterion.values()) {
+            DegreeSelector.Result result = new DegreeSelector(8, criterion).select(points[0], points[1]);
+            assertEquals(3, result.getDegree(), criterion.name());
+            double[] c = result.getPolynomial().coefficients;
+            assertEquals(4, c.length);
+            assertEquals(1, c[0], 0.05, criterion.name());
+            assertEquals(-2, c[1], 0.05, criterion.name());
+            assertEquals(0.5, c[2], 0.05, criterion.name());
+            assertEquals(0.3, c[3], 0.05, criterion.name());
+            assertEquals(9, result.getScores().length);
+        }
+    }
+
+    //Three distinct x values determine at most a quadratic; higher degrees cannot be scored
+    @Test
+    void infeasibleDegreesScoreInfinity() {
+        Random random = new Random(14);
+        int n = 60;
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i%3;
+            y[i] = 2 + x[i] + random.nextGaussian()*0.1;
+        }
+        for (DegreeSelector.Criterion criterion : DegreeSelector.Criterion.values()) {
+            DegreeSelector.Result result = new DegreeSelector(5, criterion).select(x, y);
+            double[] scores = result.getScores();
+            for (int d = 0; d <= 2; d++) {
+                assertTrue(Double.isFinite(scores[d]), criterion + " degree " + d);
+            }
+            for (int d = 3; d <= 5; d++) {
+                assertEquals(Double.POSITIVE_INFINITY, scores[d], criterion + " degree " + d);
+            }
+            assertTrue(result.getDegree() <= 2, criterion.name());
+        }
+    }
+
+    /*Cross-validation takes the smallest degree whose score is within one standard error of the lowest. A
+      small cubic term in heavy noise leaves every degree from 1 up scoring about the same; with this seed degree
+      5 scores lowest, but degree 1 is within a standard error of it */
+    @Test
+    void oneStandardErrorRule() {
+        Random random = new Random(19);
+        int n = 200;
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble()*2 - 1;
+            y[i] = x[i] + 0.1*x[i]*x[i]*x[i] + random.nextGaussian();
+        }
+        DegreeSelector selector = new DegreeSelector(6, DegreeSelector.Criterion.CROSS_VALIDATION);
+        selector.setFolds(10);
+        DegreeSelector.Result result = selector.select(x, y);
+        double[] scores = result.getScores(), standardErrors = result.getStandardErrors();
+
+        int lowest = 0;
+        for (int d = 1; d < scores.length; d++) {
+            if (scores[d] < scores[lowest]) {
+                lowest = d;
+            }
+        }
+        int expected = lowest;
+        for (int d = lowest - 1; d >= 0; d--) {
+            if (scores[d] <= scores[lowest] + standardErrors[lowest]) {
+                expected = d;
+            }
+        }
+        assertTrue(standardErrors[lowest] > 0);
+        assertEquals(5, lowest);
+        assertEquals(expected, result.getDegree());
+        assertEquals(1, result.getDegree());
+
+        //The information criteria have no standard error and take the lowest score
+        DegreeSelector.Result bic = new DegreeSelector(6, DegreeSelector.Criterion.BIC).select(x, y);
+        double[] bicScores = bic.getScores();
+        for (int d = 0; d < bicScores.length; d++) {
+            assertEquals(0, bic.getStandardErrors()[d], 0);
+            assertTrue(bicScores[bic.getDegree()] <= bicScores[d]);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FitCommandTest {
+
+    @TempDir
+    Path dir;
+
+    private Path good, bad;
+
+    //good.csv lies on y = 1 + 2x; bad.csv has a single x value, which cannot determine a line
+    @BeforeEach
+    void writeFiles() throws IOException {
+        StringBuilder csv = new StringBuilder("x,y\n");
+        for (int i = 0; i < 10; i++) {
+            csv.append(i).append(',').append(1 + 2*i).append('\n');
+        }
+        good = Files.writeString(dir.resolve("good.csv"), csv);
+        bad = Files.writeString(dir.resolve("bad.csv"), "3,1\n3,2\n3,4\n");
+    }
+
+    //Runs the command and returns its exit status followed by its output lines
+    private static String[] run(String... args) throws Exception {
+        StringWriter out = new StringWriter();
+        int status = FitCommand.execute(args, new PrintWriter(out));
+        String text = out.toString();
+        String[] lines = text.isEmpty() ? new String[0] : text.split("\\R");
+        String[] result = new String[lines.length + 1];
+        result[0] = Integer.toString(status);
+        System.arraycopy(lines, 0, result, 1, lines.length);
+        return result;
+    }
+
+    @Test
+    void csvOutput() throws Exception {
+        //One worker fits the files in their sorted order, so the rows come out in that order
+        String[] lines = run("--degree", "1", "--threads", "1", dir.toString());
+        assertEquals("1", lines[0]);
+        assertEquals(4, lines.length);
+        assertEquals("file,points,degree,coefficients,rms,max_residual,load_ms,fit_ms,error", lines[1]);
+        assertEquals(bad + ",3,,,,,,,java.lang.IllegalArgumentException: 1 distinct x values are not enough to fit"
+                + " a degree 1 polynomial", lines[2]);
+
+        String[] fields = lines[3].split(",", -1);
+        assertEquals(9, fields.length, lines[3]);
+        assertEquals(good.toString(), fields[0]);
+        assertEquals("10", fields[1]);
+        assertEquals("1", fields[2]);
+        String[] coefficients = fields[3].split(" ");
+        assertEquals(1, Double.parseDouble(coefficients[0]), 1e-12);
+        assertEquals(2, Double.parseDouble(coefficients[1]), 1e-12);
+        assertEquals(0, Double.parseDouble(fields[4]), 1e-12);
+        assertEquals("", fields[8]);
+    }
+
+    @Test
+    void jsonOutput() throws Exception {
+        String[] lines = run("--degree", "1", "--threads", "1", "--format", "json", bad.toString(), good.toString());
+        assertEquals("1", lines[0]);
+        assertEquals(3, lines.length);
+        assertEquals("{\"file\":" + FitCommand.quoteJson(bad.toString()) + ",\"points\":3,\"error\":"
+                + "\"java.lang.IllegalArgumentException: 1 distinct x values are not enough to fit a degree 1 polynomial\"}",
+                lines[1]);
+        assertTrue(lines[2].startsWith("{\"file\":" + FitCommand.quoteJson(good.toString())
+                + ",\"points\":10,\"degree\":1,\"coefficients\":["), lines[2]);
+        assertTrue(lines[2].contains("\"loadMillis\":") && lines[2].endsWith("}"), lines[2]);
+    }
+
+    @Test
+    void exitStatus() throws Exception {
+        assertEquals("0", run("--degree", "1", good.toString())[0]);
+        //A constant needs only one distinct x
+        assertEquals("0", run("--degree", "0", bad.toString())[0]);
+        assertEquals("0", run("--degree", "auto", "--max-degree", "3", good.toString(), bad.toString())[0]);
+        assertEquals("1", run("--degree", "2", good.toString(), bad.toString())[0]);
+        assertEquals("2", run(Files.createDirectory(dir.resolve("empty")).toString())[0]);
+    }
+
+    @Test
+    void quoteJson() {
+        assertEquals("\"plain\"", FitCommand.quoteJson("plain"));
+        assertEquals("\"a\\\"b\\\\c\"", FitCommand.quoteJson("a\"b\\c"));
+        assertEquals("\"line\\u000anext\\u0009tab\\u0000\"", FitCommand.quoteJson("line\nnext\ttab\0"));
+        assertEquals("\"café – ok\"", FitCommand.quoteJson("café – ok"));
+    }
+}
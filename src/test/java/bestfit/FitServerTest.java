@@ -0,0 +1,141 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class FitServerTest {
+
+    private static final Pattern COEFFICIENTS = Pattern.compile("\"coefficients\":\\[([^\\]]*)\\]");
+
+    private static FitServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = new FitServer(0, 16);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    private static HttpResponse<String> post(int degree, String csv) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getPort() + "/fit?degree=" + degree))
+                .POST(HttpRequest.BodyPublishers.ofString(csv)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static double[] coefficients(String json) {
+        Matcher matcher = COEFFICIENTS.matcher(json);
+        assertTrue(matcher.find(), json);
+        String[] parts = matcher.group(1).split(",");
+        double[] result = new double[parts.length];
+        for (int k = 0; k < parts.length; k++) {
+            result[k] = Double.parseDouble(parts[k]);
+        }
+        return result;
+    }
+
+    //Points on y = c0 + c1*x + c2*x^2 at x = 0 ... n - 1
+    private static String csv(int n, double c0, double c1, double c2) {
+        StringBuilder sb = new StringBuilder("x,y\n");
+        for (int i = 0; i < n; i++) {
+            sb.append(i).append(',').append(c0 + c1*i + c2*i*i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void repeatedRequestIsCached() throws Exception {
+        String body = csv(50, 3, -2, 0.5);
+        HttpResponse<String> first = post(2, body);
+        assertEquals(200, first.statusCode(), first.body());
+        assertTrue(first.body().contains("\"cached\":false"), first.body());
+        double[] c = coefficients(first.body());
+        assertEquals(3, c[0], 1e-9);
+        assertEquals(-2, c[1], 1e-9);
+        assertEquals(0.5, c[2], 1e-9);
+
+        HttpResponse<String> second = post(2, body);
+        assertEquals(200, second.statusCode());
+        assertTrue(second.body().contains("\"cached\":true"), second.body());
+        assertEquals(first.body().replace("false", "true"), second.body());
+
+        //The same points at another degree are a different fit
+        assertTrue(post(1, body).body().contains("\"cached\":false"));
+    }
+
+    //Requests sharing x values may be fit together in one batch, but each must get its own coefficients
+    @Test
+    void concurrentRequestsWithSameX() throws Exception {
+        int numSeries = 40;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int s = 0; s < numSeries; s++) {
+                String body = csv(200, s, 1 - s, 0.25*s);
+                responses.add(pool.submit(() -> post(2, body)));
+            }
+            for (int s = 0; s < numSeries; s++) {
+                HttpResponse<String> response = responses.get(s).get();
+                assertEquals(200, response.statusCode(), response.body());
+                double[] c = coefficients(response.body());
+                assertEquals(s, c[0], 1e-8, "Series " + s);
+                assertEquals(1 - s, c[1], 1e-8, "Series " + s);
+                assertEquals(0.25*s, c[2], 1e-8, "Series " + s);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void undeterminedFitIsRejected() throws Exception {
+        String body = "1,2\n1,3\n2,4\n";
+        for (int attempt = 0; attempt < 2; attempt++) {
+            HttpResponse<String> response = post(2, body);
+            assertEquals(400, response.statusCode());
+            assertTrue(response.body().contains("2 distinct x values are not enough"), response.body());
+        }
+    }
+
+    //A fit that fails after reaching the batch must not leave a cache entry behind
+    @Test
+    void failedFitIsNotCached() throws Exception {
+        String body = "0,1\n1,1e309\n2,3\n";
+        for (int attempt = 0; attempt < 2; attempt++) {
+            HttpResponse<String> response = post(1, body);
+            assertEquals(400, response.statusCode(), response.body());
+            assertTrue(response.body().contains("non-finite"), response.body());
+        }
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        assertEquals(400, post(FitServer.MAX_DEGREE + 1, "1,2\n").statusCode());
+        HttpRequest get = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/fit")).build();
+        assertEquals(405, client.send(get, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
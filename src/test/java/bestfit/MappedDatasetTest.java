@@ -0,0 +1,137 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedDatasetTest {
+
+    //More than one loader chunk, and not a whole number of them
+    private static final int N = DataLoader.CHUNK_SIZE + 1037;
+
+    @TempDir
+    Path dir;
+
+    private static ArrayDataset randomPoints(long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[N], y = new double[N];
+        for (int i = 0; i < N; i++) {
+            x[i] = random.nextGaussian()*1e3;
+            y[i] = random.nextDouble() - 0.5;
+        }
+        return new ArrayDataset(x, y);
+    }
+
+    private static Path write(Path file, MappedDataset.Precision precision, Dataset points) throws IOException {
+        try (MappedDataset.Writer writer = new MappedDataset.Writer(file, precision)) {
+            points.forEachChunk(writer);
+            assertEquals(points.size(), writer.getCount());
+        }
+        return file;
+    }
+
+    //Returns x0, y0, x1, y1, ... in the order forEachChunk passes them on
+    private static List<Double> collect(Dataset points) {
+        List<Double> values = new ArrayList<>();
+        points.forEachChunk((x, y, count) -> {
+            for (int i = 0; i < count; i++) {
+                values.add(x[i]);
+                values.add(y[i]);
+            }
+        });
+        return values;
+    }
+
+    //What a point reads back as at the given precision
+    private static double stored(double value, MappedDataset.Precision precision) {
+        return precision == MappedDataset.Precision.FLOAT32 ? (float) value : value;
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        ArrayDataset points = randomPoints(1);
+        for (MappedDataset.Precision precision : MappedDataset.Precision.values()) {
+            MappedDataset data = MappedDataset.open(write(dir.resolve("points"), precision, points), precision);
+            assertEquals(N, data.size());
+            assertEquals(precision, data.getPrecision());
+            double[] x = new double[N], y = new double[N], xs = new double[N], ys = new double[N];
+            points.read(0, xs, ys, N);
+            data.read(0, x, y, N);
+            for (int i = 0; i < N; i++) {
+                assertEquals(stored(xs[i], precision), x[i], 0, precision + " x " + i);
+                assertEquals(stored(ys[i], precision), y[i], 0, precision + " y " + i);
+            }
+        }
+        //The extension picks the precision
+        MappedDataset floats = MappedDataset.open(write(dir.resolve("points.f32"), MappedDataset.Precision.FLOAT32, points));
+        assertEquals(MappedDataset.Precision.FLOAT32, floats.getPrecision());
+    }
+
+    //Regions of 100 points put boundaries inside reads and inside chunks
+    @Test
+    void readsAcrossRegions() throws IOException {
+        ArrayDataset points = randomPoints(2);
+        for (MappedDataset.Precision precision : MappedDataset.Precision.values()) {
+            Path file = write(dir.resolve("points"), precision, points);
+            long regionBytes = 100*2*(precision == MappedDataset.Precision.FLOAT32 ? 4 : 8);
+            MappedDataset data = MappedDataset.open(file, precision, regionBytes);
+
+            Random random = new Random(3);
+            double[] x = new double[500], y = new double[500], xs = new double[500], ys = new double[500];
+            for (int trial = 0; trial < 200; trial++) {
+                int count = trial < 3 ? new int[] {1, 100, 101}[trial] : random.nextInt(x.length + 1);
+                long from = trial < 3 ? 99 : random.nextInt(N - count + 1);
+                data.read(from, x, y, count);
+                points.read(from, xs, ys, count);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(stored(xs[i], precision), x[i], 0, "Point " + (from + i));
+                    assertEquals(stored(ys[i], precision), y[i], 0, "Point " + (from + i));
+                }
+            }
+
+            List<Double> expected = collect(points), actual = collect(data);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(stored(expected.get(i), precision), actual.get(i), 0);
+            }
+        }
+    }
+
+    @Test
+    void loaderReadsFloats() throws IOException {
+        ArrayDataset points = randomPoints(4);
+        Path file = write(dir.resolve("points.f32"), MappedDataset.Precision.FLOAT32, points);
+        List<Double> loaded = new ArrayList<>();
+        long count = DataLoader.load(file, (x, y, n) -> {
+            for (int i = 0; i < n; i++) {
+                loaded.add(x[i]);
+                loaded.add(y[i]);
+            }
+        });
+        assertEquals(N, count);
+        assertEquals(collect(MappedDataset.open(file)), loaded);
+    }
+
+    @Test
+    void rejectsBadFilesAndReads() throws IOException {
+        Path file = Files.write(dir.resolve("points.f32"), new byte[12]);
+        assertThrows(IOException.class, () -> MappedDataset.open(file));
+        assertThrows(IOException.class, () -> MappedDataset.open(file, MappedDataset.Precision.FLOAT64));
+        assertEquals(0, MappedDataset.open(Files.write(dir.resolve("empty"), new byte[0])).size());
+
+        Path points = write(dir.resolve("points"), MappedDataset.Precision.FLOAT64, randomPoints(5));
+        MappedDataset mapped = MappedDataset.open(points, MappedDataset.Precision.FLOAT64);
+        double[] x = new double[2], y = new double[2];
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.read(N - 1, x, y, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> mapped.read(-1, x, y, 1));
+    }
+}
@@ -0,0 +1,127 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//Each kernel must agree with the simple loop in Matrix.multiplySmall, up to the order of the additions
+class MatrixKernelsTest {
+
+    private static final Random RANDOM = new Random(31);
+
+    private static Matrix random(int numRow, int numCol) {
+        Matrix m = new Matrix(numRow, numCol);
+        for (int i = 0; i < numRow; i++) {
+            for (int j = 0; j < numCol; j++) {
+                m.setEntry(i, j, RANDOM.nextGaussian());
+            }
+        }
+        return m;
+    }
+
+    //A numRow x numCol view into the middle of a larger matrix, so neither stride matches its width
+    private static Matrix view(int numRow, int numCol) {
+        return random(numRow + 5, numCol + 7).submatrix(3, 2, numRow, numCol);
+    }
+
+    //Reference product, computed entry by entry with no blocking at all
+    private static void assertProduct(Matrix a, Matrix b, Matrix actual) {
+        Matrix expected = a.multiplySmall(b);
+        int inner = a.getNumCol();
+        assertEquals(expected.getNumRow(), actual.getNumRow());
+        assertEquals(expected.getNumCol(), actual.getNumCol());
+        for (int i = 0; i < expected.getNumRow(); i++) {
+            for (int j = 0; j < expected.getNumCol(); j++) {
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), 1e-13*inner, "Entry (" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    @Test
+    void multiplyOnSizesAcrossTileEdges() {
+        //MC = 64, KC = 128, NC = 256: one above, one below and well away from a whole number of tiles
+        int[][] sizes = {{67, 129, 257}, {63, 127, 255}, {64, 128, 256}, {129, 257, 3}, {1, 300, 200}, {200, 150, 100}};
+        for (int[] size : sizes) {
+            Matrix a = random(size[0], size[1]);
+            Matrix b = random(size[1], size[2]);
+            assertProduct(a, b, MatrixKernels.multiply(a, b));
+            assertProduct(a, b, a.multiply(b));
+        }
+    }
+
+    @Test
+    void multiplyAroundKernelThreshold() {
+        //32^3 is exactly KERNEL_THRESHOLD, so these fall on either side of the switch to the kernel
+        int[][] sizes = {{32, 32, 32}, {31, 32, 33}, {32, 32, 31}, {33, 32, 32}};
+        for (int[] size : sizes) {
+            Matrix a = random(size[0], size[1]);
+            Matrix b = random(size[1], size[2]);
+            assertProduct(a, b, a.multiply(b));
+            assertProduct(a, b, MatrixKernels.multiply(a, b));
+        }
+    }
+
+    @Test
+    void multiplyViews() {
+        Matrix a = view(70, 130);
+        Matrix b = random(260, 130).transpose(); //130 x 260, stored by column
+        assertProduct(a, b, MatrixKernels.multiply(a, b));
+        Matrix c = random(90, 70).transpose();
+        Matrix d = view(90, 40);
+        assertProduct(c, d, MatrixKernels.multiply(c, d));
+    }
+
+    //The kernel fills one triangle and mirrors it, so the product must be exactly symmetric
+    @Test
+    void transposeMultiplySelf() {
+        int[][] sizes = {{33, 1025}, {3000, 130}, {100000, 3}, {70000, 12}, {500, 31}, {500, 33}};
+        for (int[] size : sizes) {
+            Matrix a = random(size[0], size[1]);
+            Matrix actual = MatrixKernels.transposeMultiplySelf(a);
+            assertProduct(a.transpose(), a, actual);
+            assertSymmetric(actual);
+            assertProduct(a.transpose(), a, a.transposeMultiply(a));
+        }
+        Matrix v = view(400, 45);
+        assertProduct(v.transpose(), v, MatrixKernels.transposeMultiplySelf(v));
+        Matrix t = random(45, 2000).transpose();
+        Matrix actual = MatrixKernels.transposeMultiplySelf(t);
+        assertProduct(t.transpose(), t, actual);
+        assertSymmetric(actual);
+    }
+
+    private static void assertSymmetric(Matrix m) {
+        for (int i = 0; i < m.getNumRow(); i++) {
+            for (int j = 0; j < i; j++) {
+                assertEquals(m.getEntry(j, i), m.getEntry(i, j), 0, "Entry (" + i + ", " + j + ")");
+            }
+        }
+    }
+
+    @Test
+    void transposeMultiplyNarrow() {
+        int[][] sizes = {{5000, 70, 5}, {20000, 70, 3}, {100000, 3, 1}, {300, 129, 16}, {40, 30, 30}};
+        for (int[] size : sizes) {
+            Matrix a = random(size[0], size[1]);
+            Matrix b = random(size[0], size[2]);
+            assertProduct(a.transpose(), b, MatrixKernels.transposeMultiply(a, b));
+            assertProduct(a.transpose(), b, a.transposeMultiply(b));
+        }
+        Matrix a = view(3000, 20);
+        Matrix b = view(3000, 4);
+        assertProduct(a.transpose(), b, MatrixKernels.transposeMultiply(a, b));
+    }
+
+    //Below the threshold transposeMultiply uses the simple loop; just above it, a kernel
+    @Test
+    void transposeMultiplyAroundKernelThreshold() {
+        int[][] sizes = {{32, 32, 32}, {32, 32, 31}, {1024, 32, 1}, {1023, 32, 1}};
+        for (int[] size : sizes) {
+            Matrix a = random(size[0], size[1]);
+            Matrix b = random(size[0], size[2]);
+            assertProduct(a.transpose(), b, a.transposeMultiply(b));
+        }
+    }
+}
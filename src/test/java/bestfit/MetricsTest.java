@@ -0,0 +1,125 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+//Metrics is global, so each test starts from cleared statistics and leaves recording switched off
+class MetricsTest {
+
+    @BeforeEach
+    void clear() {
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void disable() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    void countsAndTotals() {
+        Metrics.StageMXBean paint = Metrics.get(Metrics.Stage.PAINT);
+        assertEquals(0, paint.getCount());
+        assertEquals(0, paint.getMeanMicros(), 0);
+        assertEquals(0, paint.getP50Micros(), 0);
+
+        Metrics.record(Metrics.Stage.PAINT, 1000);
+        Metrics.record(Metrics.Stage.PAINT, 3000);
+        Metrics.record(Metrics.Stage.PAINT, -5); //Counted as zero
+        assertEquals(3, paint.getCount());
+        assertEquals(4, paint.getTotalMicros(), 0);
+        assertEquals(4/3.0, paint.getMeanMicros(), 1e-12);
+        assertEquals(3, paint.getMaxMicros(), 0);
+        assertEquals(0, Metrics.get(Metrics.Stage.INVERT).getCount());
+
+        Metrics.reset();
+        assertEquals(0, paint.getCount());
+        assertEquals(0, paint.getMaxMicros(), 0);
+    }
+
+    /*Below 4 ns each value has a bucket; from 4 ns up there are four buckets per power of two, so 8 and 9
+      share [8, 10) while 10 starts [10, 12). A percentile reports the end of its bucket, e.g. 4 ns for 3 ns */
+    @Test
+    void bucketBoundaries() {
+        Metrics.StageMXBean paint = Metrics.get(Metrics.Stage.PAINT);
+        Metrics.record(Metrics.Stage.PAINT, 8);
+        Metrics.record(Metrics.Stage.PAINT, 9);
+        Metrics.record(Metrics.Stage.PAINT, 1000);
+        assertEquals(0.010, paint.getP50Micros(), 1e-15);
+
+        Metrics.reset();
+        Metrics.record(Metrics.Stage.PAINT, 8);
+        Metrics.record(Metrics.Stage.PAINT, 10);
+        Metrics.record(Metrics.Stage.PAINT, 1000);
+        assertEquals(0.012, paint.getP50Micros(), 1e-15);
+
+        Metrics.reset();
+        Metrics.record(Metrics.Stage.PAINT, 2);
+        Metrics.record(Metrics.Stage.PAINT, 3);
+        Metrics.record(Metrics.Stage.PAINT, 1000);
+        assertEquals(0.004, paint.getP50Micros(), 1e-15);
+
+        //1023 ends [896, 1024) and 1024 starts [1024, 1280); the end is capped at the largest recorded value
+        Metrics.reset();
+        for (int i = 0; i < 99; i++) {
+            Metrics.record(Metrics.Stage.PAINT, 1023);
+        }
+        Metrics.record(Metrics.Stage.PAINT, 1024);
+        assertEquals(1.024, paint.getP50Micros(), 1e-12);
+        assertEquals(1.024, paint.getP99Micros(), 1e-12);
+        Metrics.record(Metrics.Stage.PAINT, 2000);
+        assertEquals(1.024, paint.getP50Micros(), 1e-12);
+        assertEquals(1.28, paint.getP99Micros(), 1e-12);
+    }
+
+    @Test
+    void eventsFeedMetricsOnlyWhenEnabled() {
+        FitStageEvent first = FitStageEvent.start(Metrics.Stage.PAINT);
+        FitStageEvent second = FitStageEvent.start(Metrics.Stage.PAINT);
+        assertSame(first, second); //No JFR recording is running, so nothing is allocated
+        first.finish(1, 1);
+        assertEquals(0, Metrics.get(Metrics.Stage.PAINT).getCount());
+
+        Metrics.setEnabled(true);
+        FitStageEvent event = FitStageEvent.start(Metrics.Stage.PAINT);
+        assertNotSame(first, event);
+        event.finish(2, 3);
+        assertEquals(1, Metrics.get(Metrics.Stage.PAINT).getCount());
+    }
+
+    @Test
+    void registersBeans() throws Exception {
+        Metrics.register();
+        Metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName control = new ObjectName("bestfit:type=Metrics");
+        assertTrue(server.isRegistered(control));
+        for (Metrics.Stage stage : Metrics.Stage.values()) {
+            assertTrue(server.isRegistered(new ObjectName("bestfit:type=Metrics,stage=" + stage.getLabel())), stage.name());
+        }
+
+        assertFalse((Boolean) server.getAttribute(control, "Enabled"));
+        server.setAttribute(control, new Attribute("Enabled", true));
+        assertTrue(Metrics.isEnabled());
+
+        Metrics.record(Metrics.Stage.FIT, 5000);
+        ObjectName fit = new ObjectName("bestfit:type=Metrics,stage=fit");
+        assertEquals(1L, server.getAttribute(fit, "Count"));
+        assertEquals(5.0, server.getAttribute(fit, "MaxMicros"));
+        server.invoke(control, "reset", null, null);
+        assertEquals(0L, server.getAttribute(fit, "Count"));
+    }
+}
@@ -0,0 +1,91 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class OrthogonalPolynomialFitterTest {
+
+    //x uniform on [-1, 1], where monomials are well enough conditioned for QR to be an exact reference
+    private static double[][] points(Random random, int n) {
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble()*2 - 1;
+            y[i] = Math.exp(x[i])*Math.cos(3*x[i]) + random.nextGaussian()*0.05;
+        }
+        return new double[][] {x, y};
+    }
+
+    @Test
+    void matchesQr() {
+        double[][] points = points(new Random(12), 300);
+        double[] x = points[0], y = points[1];
+        OrthogonalPolynomialFitter fitter = new OrthogonalPolynomialFitter(x, y);
+        for (int degree = 0; degree <= 8; degree++) {
+            if (degree > 0) {
+                fitter.increaseDegree();
+            }
+            assertEquals(degree, fitter.getDegree());
+            Polynomial expected = QRSolver.fitPolynomial(x, y, degree);
+            Polynomial monomial = fitter.toPolynomial();
+            assertEquals(degree + 1, monomial.coefficients.length);
+            for (int k = 0; k <= degree; k++) {
+                assertEquals(expected.coefficients[k], monomial.coefficients[k], 1e-8, "Degree " + degree + ", x^" + k);
+            }
+            for (int i = 0; i < x.length; i += 7) {
+                assertEquals(expected.evaluate(x[i]), fitter.evaluate(x[i]), 1e-11, "Degree " + degree);
+                assertEquals(expected.evaluate(x[i]), monomial.evaluate(x[i]), 1e-10, "Degree " + degree);
+            }
+        }
+    }
+
+    @Test
+    void residualsFallWithDegree() {
+        double[][] points = points(new Random(13), 200);
+        double[] x = points[0], y = points[1];
+        double[] rss = new OrthogonalPolynomialFitter(x, y).fitDegrees(10);
+        assertEquals(11, rss.length);
+
+        OrthogonalPolynomialFitter fitter = new OrthogonalPolynomialFitter(x, y);
+        for (int degree = 0; degree <= 10; degree++) {
+            if (degree > 0) {
+                fitter.increaseDegree();
+                assertTrue(rss[degree] <= rss[degree - 1], "Degree " + degree);
+            }
+            double sum = 0;
+            for (int i = 0; i < x.length; i++) {
+                double r = y[i] - fitter.evaluate(x[i]);
+                sum += r*r;
+            }
+            assertEquals(sum, fitter.getResidualSumOfSquares(), 1e-9*sum);
+            assertEquals(rss[degree], fitter.getResidualSumOfSquares(), 0);
+        }
+    }
+
+    //Three distinct x values determine at most a quadratic, which must survive the failed attempt to go higher
+    @Test
+    void rejectsDegenerateData() {
+        double[] x = new double[30], y = new double[30];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i%3;
+            y[i] = 1 + x[i]*x[i] + (i%2)*0.1;
+        }
+        OrthogonalPolynomialFitter fitter = new OrthogonalPolynomialFitter(x, y);
+        fitter.fitDegrees(2);
+        Polynomial quadratic = fitter.toPolynomial();
+        assertThrows(IllegalStateException.class, fitter::increaseDegree);
+        assertEquals(2, fitter.getDegree());
+        for (double at : new double[] {0, 1, 2, 0.5}) {
+            assertEquals(quadratic.evaluate(at), fitter.evaluate(at), 1e-12);
+        }
+
+        double[] same = {4, 4, 4, 4};
+        assertThrows(IllegalStateException.class, () -> new OrthogonalPolynomialFitter(same, new double[4]).fitDegrees(1));
+        assertThrows(IllegalArgumentException.class, () -> new OrthogonalPolynomialFitter(x, new double[29]));
+        assertThrows(IllegalArgumentException.class, () -> new OrthogonalPolynomialFitter(new double[0], new double[0]));
+    }
+}
@@ -0,0 +1,154 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class QRSolverTest {
+
+    private static Matrix randomMatrix(Random random, int numRow, int numCol) {
+        Matrix m = new Matrix(numRow, numCol);
+        for (int i = 0; i < numRow; i++) {
+            for (int j = 0; j < numCol; j++) {
+                m.setEntry(i, j, random.nextGaussian());
+            }
+        }
+        return m;
+    }
+
+    //Enough rows to span several blocks, with a partial block at the end
+    @Test
+    void matchesNormalEquationsOnWellConditionedProblem() {
+        Random random = new Random(1);
+        Matrix a = randomMatrix(random, 1000, 6);
+        Matrix b = randomMatrix(random, 1000, 3);
+
+        QRSolver solver = new QRSolver(6, 3);
+        solver.addRows(a, b);
+        Matrix qr = solver.solve();
+        Matrix normal = a.solveLeastSquares(b);
+        assertEquals(1000, solver.getCount());
+        for (int i = 0; i < 6; i++) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals(normal.getEntry(i, c), qr.getEntry(i, c), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void addRowMatchesAddRows() {
+        Random random = new Random(2);
+        Matrix a = randomMatrix(random, 300, 4);
+        Matrix b = randomMatrix(random, 300, 2);
+        QRSolver byMatrix = new QRSolver(4, 2);
+        byMatrix.addRows(a, b);
+        QRSolver byRow = new QRSolver(4, 2);
+        double[] row = new double[6];
+        for (int i = 0; i < 300; i++) {
+            for (int j = 0; j < 4; j++) {
+                row[j] = a.getEntry(i, j);
+            }
+            row[4] = b.getEntry(i, 0);
+            row[5] = b.getEntry(i, 1);
+            byRow.addRow(row);
+        }
+        Matrix expected = byMatrix.solve(), actual = byRow.solve();
+        for (int i = 0; i < 4; i++) {
+            for (int c = 0; c < 2; c++) {
+                assertEquals(expected.getEntry(i, c), actual.getEntry(i, c), 0);
+            }
+        }
+    }
+
+    @Test
+    void residualSumOfSquares() {
+        Random random = new Random(3);
+        Matrix a = randomMatrix(random, 500, 5);
+        Matrix b = randomMatrix(random, 500, 2);
+        QRSolver solver = new QRSolver(5, 2);
+        solver.addRows(a, b);
+        Matrix x = solver.solve();
+        Matrix fitted = a.multiply(x);
+        for (int c = 0; c < 2; c++) {
+            double rss = 0;
+            for (int i = 0; i < 500; i++) {
+                double r = b.getEntry(i, c) - fitted.getEntry(i, c);
+                rss += r*r;
+            }
+            assertEquals(rss, solver.getResidualSumOfSquares(c), 1e-10*rss);
+        }
+    }
+
+    //R-transpose * R is the normal matrix
+    @Test
+    void factorReproducesNormalMatrix() {
+        Random random = new Random(4);
+        Matrix a = randomMatrix(random, 200, 5);
+        QRSolver solver = new QRSolver(5, 1);
+        solver.addRows(a, new Matrix(200, 1));
+        Matrix r = solver.getR();
+        Matrix expected = a.transposeMultiply(a), actual = r.transposeMultiply(r);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), 1e-10*expected.getEntry(i, i));
+                if (j < i) {
+                    assertEquals(0, r.getEntry(i, j), 0);
+                }
+            }
+        }
+    }
+
+    //A degree 12 fit on [0, 1] has a normal matrix too ill-conditioned for Cholesky to be accurate
+    @Test
+    void recoversHighDegreePolynomial() {
+        int degree = 12;
+        double[] coefficients = new double[degree + 1];
+        for (int k = 0; k <= degree; k++) {
+            coefficients[k] = (k%2 == 0 ? 1 : -1)*(k + 1);
+        }
+        Polynomial p = new Polynomial(coefficients);
+        int n = 400;
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i/(n - 1.0);
+            y[i] = p.evaluate(x[i]);
+        }
+
+        Polynomial fit = QRSolver.fitPolynomial(x, y, degree);
+        for (int i = 0; i < n; i++) {
+            assertEquals(y[i], fit.evaluate(x[i]), 1e-8*Math.max(1, Math.abs(y[i])));
+        }
+        Matrix solution = QRSolver.solvePolynomial(x, y, degree);
+        for (int k = 0; k <= degree; k++) {
+            assertEquals(coefficients[k], solution.getEntry(k, 0), 1e-3*Math.abs(coefficients[k]));
+        }
+    }
+
+    @Test
+    void datasetMatchesArrays() {
+        Random random = new Random(5);
+        double[] x = new double[5000], y = new double[5000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = random.nextDouble()*4 - 2;
+            y[i] = 1 - x[i] + 0.5*x[i]*x[i]*x[i] + random.nextGaussian()*0.1;
+        }
+        Matrix fromArrays = QRSolver.solvePolynomial(x, y, 3);
+        Matrix fromDataset = QRSolver.solvePolynomial(new ArrayDataset(x, y), 3);
+        for (int k = 0; k <= 3; k++) {
+            assertEquals(fromArrays.getEntry(k, 0), fromDataset.getEntry(k, 0), 0);
+        }
+        assertEquals(1, fromArrays.getEntry(0, 0), 0.02);
+        assertEquals(-1, fromArrays.getEntry(1, 0), 0.02);
+        assertEquals(0.5, fromArrays.getEntry(3, 0), 0.02);
+    }
+
+    @Test
+    void rejectsMismatchedShapes() {
+        QRSolver solver = new QRSolver(3, 1);
+        assertThrows(IllegalArgumentException.class, () -> solver.addRows(new Matrix(5, 2), new Matrix(5, 1)));
+        assertThrows(IllegalArgumentException.class, () -> solver.addRows(new Matrix(5, 3), new Matrix(4, 1)));
+    }
+}
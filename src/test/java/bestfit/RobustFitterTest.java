@@ -0,0 +1,46 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class RobustFitterTest {
+
+    private static final double[] X = {0, 1, 2, 3, 4, 5, 6, 7};
+    private static final double[] Y = {1, 3, 5, 7, 9, 11, 13, 100}; //y = 1 + 2x, apart from one outlier
+
+    @Test
+    void ignoresOutlier() {
+        Polynomial fit = new RobustFitter(1, RobustFitter.Loss.TUKEY).fit(X, Y);
+        assertEquals(1, fit.coefficients[0], 1e-6);
+        assertEquals(2, fit.coefficients[1], 1e-6);
+    }
+
+    //A weighted fit sums the same power sums as PolynomialFitter does for weighted points
+    @Test
+    void weightedMatchesPolynomialFitter() {
+        double[] w = {1, 2, 0.5, 1, 3, 1, 1, 0};
+        Polynomial robust = new RobustFitter(2, RobustFitter.Loss.HUBER).fitWeighted(X, Y, w);
+        PolynomialFitter fitter = new PolynomialFitter(2);
+        fitter.addAll(X, Y, w);
+        Polynomial expected = fitter.getPolynomial();
+        for (int k = 0; k <= 2; k++) {
+            assertEquals(expected.coefficients[k], robust.coefficients[k], 1e-9);
+        }
+    }
+
+    @Test
+    void rejectsBadWeights() {
+        RobustFitter fitter = new RobustFitter(1, RobustFitter.Loss.HUBER);
+        double[] w = new double[X.length];
+        for (double bad : new double[] {-1, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            Arrays.fill(w, 1);
+            w[3] = bad;
+            assertThrows(IllegalArgumentException.class, () -> fitter.fitWeighted(X, Y, w));
+        }
+        assertThrows(IllegalArgumentException.class, () -> fitter.fitWeighted(X, Y, new double[3]));
+    }
+}
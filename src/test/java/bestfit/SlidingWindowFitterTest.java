@@ -0,0 +1,102 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SlidingWindowFitterTest {
+
+    //The fit over the window, computed directly by QR in coordinates centred on the window
+    private static double qrValue(double[] x, double[] y, int from, int to, int degree, double at) {
+        double origin = x[from];
+        double[] u = new double[to - from];
+        for (int i = from; i < to; i++) {
+            u[i - from] = x[i] - origin;
+        }
+        return QRSolver.fitPolynomial(u, Arrays.copyOfRange(y, from, to), degree).evaluate(at - origin);
+    }
+
+    //Timestamps far from zero, run long enough for the sums to be replaced many times
+    @Test
+    void matchesQrOnTimestamps() {
+        Random random = new Random(21);
+        int n = 5000, window = 200;
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 1.7e9 + i + random.nextDouble()*0.5;
+            y[i] = Math.sin(i/100.0) + random.nextGaussian()*0.01;
+        }
+        for (int degree = 0; degree <= 4; degree++) {
+            SlidingWindowFitter fitter = new SlidingWindowFitter(degree, window);
+            for (int i = 0; i < n; i++) {
+                fitter.add(x[i], y[i]);
+                if (i >= degree && (i%97 == 0 || i == n - 1)) {
+                    int from = Math.max(0, i + 1 - window);
+                    double expected = qrValue(x, y, from, i + 1, degree, x[i]);
+                    assertEquals(expected, fitter.evaluate(x[i]), 1e-9, "Degree " + degree + " after point " + i);
+                }
+            }
+            assertEquals(window, fitter.getCount());
+        }
+    }
+
+    //Degrees this high leave the normal matrix too ill-conditioned, so every fit falls back to QR
+    @Test
+    void highDegreeUsesQrFallback() {
+        Random random = new Random(22);
+        int n = 1500, window = 200;
+        double[] x = new double[n], y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 1.7e9 + i + random.nextDouble()*0.5;
+            y[i] = Math.sin(i/50.0) + random.nextGaussian()*0.01;
+        }
+        for (int degree : new int[] {6, 8, 10}) {
+            SlidingWindowFitter fitter = new SlidingWindowFitter(degree, window);
+            for (int i = 0; i < n; i++) {
+                fitter.add(x[i], y[i]);
+                if (i >= degree && (i%89 == 0 || i == n - 1)) {
+                    int from = Math.max(0, i + 1 - window);
+                    double expected = qrValue(x, y, from, i + 1, degree, x[i]);
+                    double actual = fitter.evaluate(x[i]);
+                    assertEquals(expected, actual, 1e-6, "Degree " + degree + " after point " + i);
+                    //A second fit before the next add() reuses the first
+                    assertEquals(actual, fitter.evaluate(x[i]), 0);
+                    assertEquals(actual, fitter.getCurve().evaluate(x[i]), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void polynomialMatchesCurve() {
+        SlidingWindowFitter fitter = new SlidingWindowFitter(2, 30);
+        for (int i = 0; i < 100; i++) {
+            fitter.add(i*0.1, 1 + 2*i*0.1 - 0.5*i*0.01*i);
+        }
+        Polynomial p = fitter.getPolynomial();
+        for (int i = 70; i < 100; i++) {
+            assertEquals(fitter.evaluate(i*0.1), p.evaluate(i*0.1), 1e-9);
+        }
+        assertEquals(1, p.coefficients[0], 1e-9);
+        assertEquals(2, p.coefficients[1], 1e-9);
+        assertEquals(-0.5, p.coefficients[2], 1e-9);
+    }
+
+    @Test
+    void rejectsUndeterminedFit() {
+        SlidingWindowFitter fitter = new SlidingWindowFitter(2, 10);
+        for (int i = 0; i < 10; i++) {
+            fitter.add(5, i);
+        }
+        assertThrows(ArithmeticException.class, fitter::getCurve);
+        assertThrows(ArithmeticException.class, fitter::getCurve);
+        fitter.add(6, 10);
+        fitter.add(7, 11);
+        assertEquals(11, fitter.evaluate(7), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowFitter(3, 3));
+    }
+}
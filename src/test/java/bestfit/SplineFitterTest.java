@@ -0,0 +1,80 @@
+package bestfit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SplineFitterTest {
+
+    //Without a penalty, a cubic lies in the spline space and is reproduced exactly
+    @Test
+    void reproducesCubicWithoutPenalty() {
+        Polynomial cubic = new Polynomial(new double[] {2, -1, 0.5, 0.25});
+        double[] x = new double[500], y = new double[500];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = -3 + 6.0*i/(x.length - 1);
+            y[i] = cubic.evaluate(x[i]);
+        }
+        PiecewisePolynomial spline = SplineFitter.fit(x, y, 10, 0);
+        assertEquals(10, spline.getNumPieces());
+        for (double t = -3; t <= 3; t += 0.01) {
+            assertEquals(cubic.evaluate(t), spline.evaluate(t), 1e-9);
+        }
+    }
+
+    //The second-difference penalty is zero on a straight line, so any lambda leaves it alone
+    @Test
+    void penaltyKeepsStraightLine() {
+        double[] x = new double[200], y = new double[200];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i;
+            y[i] = 3 - 0.5*i;
+        }
+        PiecewisePolynomial spline = SplineFitter.fit(x, y, 8, 1e6);
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(y[i], spline.evaluate(x[i]), 1e-8);
+        }
+    }
+
+    //Value and first two derivatives agree across each breakpoint
+    @Test
+    void continuousAtBreakpoints() {
+        Random random = new Random(9);
+        double[] x = new double[1000], y = new double[1000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = random.nextDouble()*10;
+            y[i] = Math.sin(x[i]) + random.nextGaussian()*0.1;
+        }
+        PiecewisePolynomial spline = SplineFitter.fit(x, y, 12, 1);
+        double[] breakpoints = spline.getBreakpoints();
+        for (int s = 1; s < spline.getNumPieces(); s++) {
+            //Each piece is in terms of the offset from its own breakpoint
+            double[] left = derivatives(spline.getPiece(s - 1), breakpoints[s] - breakpoints[s - 1]);
+            double[] right = derivatives(spline.getPiece(s), 0);
+            for (int d = 0; d < 3; d++) {
+                assertEquals(left[d], right[d], 1e-9*Math.max(1, Math.abs(left[d])), "Derivative " + d + " at piece " + s);
+            }
+        }
+    }
+
+    //p(t), p'(t) and p''(t) for a cubic piece
+    private static double[] derivatives(Polynomial p, double t) {
+        double[] c = p.coefficients;
+        return new double[] {
+            c[0] + t*(c[1] + t*(c[2] + t*c[3])),
+            c[1] + t*(2*c[2] + t*3*c[3]),
+            2*c[2] + t*6*c[3]
+        };
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SplineFitter(1, 1, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SplineFitter(0, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SplineFitter(0, 1, 4, -1));
+        assertThrows(IllegalArgumentException.class, () -> new SplineFitter(0, 1, 4, Double.NaN));
+    }
+}